@@ -0,0 +1,128 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * <p>Clase para conjuntos disjuntos (<em>union-find</em>) sobre los enteros de
+ * 0 a <i>n</i>-1.</p>
+ *
+ * <p>Cada conjunto es un árbol guardado en un arreglo de padres, cuya raíz es
+ * el representante del conjunto. Las uniones cuelgan el árbol más chico del
+ * más grande, y las búsquedas acortan el camino a la raíz (cada elemento
+ * recorrido pasa a apuntar a su abuelo), de modo que una sucesión de
+ * operaciones cuesta un tiempo prácticamente constante por operación.</p>
+ */
+public class ConjuntosDisjuntos {
+
+    /* El padre de cada elemento; las raíces son su propio padre. */
+    private int[] padre;
+    /* El tamaño del conjunto de cada raíz. */
+    private int[] tamano;
+    /* El número de conjuntos. */
+    private int conjuntos;
+
+    /**
+     * Construye <i>n</i> conjuntos, cada uno con un solo elemento.
+     * @param n el número de elementos.
+     */
+    public ConjuntosDisjuntos(int n) {
+        padre = new int[n];
+        tamano = new int[n];
+        for (int i = 0; i < n; i++) {
+            padre[i] = i;
+            tamano[i] = 1;
+        }
+        conjuntos = n;
+    }
+
+    /**
+     * Regresa el representante del conjunto del elemento.
+     * @param elemento el elemento.
+     * @return el representante del conjunto del elemento.
+     */
+    public int encuentra(int elemento) {
+        while (padre[elemento] != elemento) {
+            padre[elemento] = padre[padre[elemento]];
+            elemento = padre[elemento];
+        }
+        return elemento;
+    }
+
+    /**
+     * Une los conjuntos de dos elementos.
+     * @param a el primer elemento.
+     * @param b el segundo elemento.
+     * @return <code>true</code> si los elementos estaban en conjuntos
+     *         distintos, <code>false</code> en otro caso.
+     */
+    public boolean une(int a, int b) {
+        a = encuentra(a);
+        b = encuentra(b);
+        if (a == b)
+            return false;
+        if (tamano[a] < tamano[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        padre[b] = a;
+        tamano[a] += tamano[b];
+        conjuntos--;
+        return true;
+    }
+
+    /**
+     * Nos dice si dos elementos están en el mismo conjunto.
+     * @param a el primer elemento.
+     * @param b el segundo elemento.
+     * @return <code>true</code> si los elementos están en el mismo conjunto,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean mismoConjunto(int a, int b) {
+        return encuentra(a) == encuentra(b);
+    }
+
+    /**
+     * Regresa el número de elementos del conjunto del elemento.
+     * @param elemento el elemento.
+     * @return el número de elementos del conjunto del elemento.
+     */
+    public int getTamano(int elemento) {
+        return tamano[encuentra(elemento)];
+    }
+
+    /**
+     * Regresa el número de conjuntos.
+     * @return el número de conjuntos.
+     */
+    public int getConjuntos() {
+        return conjuntos;
+    }
+
+    /**
+     * Regresa el número de elementos.
+     * @return el número de elementos.
+     */
+    public int getElementos() {
+        return padre.length;
+    }
+
+    /**
+     * Numera los conjuntos de 0 a <i>k</i>-1, en el orden en que aparece su
+     * primer elemento, y regresa el número de conjunto de cada elemento.
+     * @return el número de conjunto de cada elemento.
+     */
+    public int[] etiquetas() {
+        int n = padre.length;
+        int[] etiqueta = new int[n];
+        int[] deRaiz = new int[n];
+        for (int i = 0; i < n; i++)
+            deRaiz[i] = -1;
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            int raiz = encuentra(i);
+            if (deRaiz[raiz] == -1)
+                deRaiz[raiz] = k++;
+            etiqueta[i] = deRaiz[raiz];
+        }
+        return etiqueta;
+    }
+}
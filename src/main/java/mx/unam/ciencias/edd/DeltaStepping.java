@@ -0,0 +1,316 @@
+package mx.unam.ciencias.edd;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Clase para calcular distancias mínimas desde un origen a todos los
+ * vértices con el algoritmo <em>delta-stepping</em>, en paralelo.</p>
+ *
+ * <p>Los vértices se agrupan en cubetas de ancho Δ según su distancia
+ * tentativa. Se procesa una cubeta a la vez: primero se relajan en paralelo
+ * las aristas ligeras (de peso a lo más Δ) de todos sus vértices, repitiendo
+ * mientras la cubeta reciba vértices nuevos, y al final se relajan, también
+ * en paralelo, las aristas pesadas de todos los vértices que la cubeta fijó.
+ * Las distancias se actualizan con operaciones atómicas de comparar e
+ * intercambiar, de modo que los hilos no necesitan candados.</p>
+ *
+ * <p>A diferencia de {@link Grafica#dijkstra}, que usa un solo hilo, esta
+ * clase reparte el trabajo de cada fase entre los hilos de un {@link
+ * ForkJoinPool}. Una instancia no debe usarse desde varios hilos al mismo
+ * tiempo.</p>
+ */
+public class DeltaStepping<T> {
+
+    /* Clase interna privada para relajar en paralelo las aristas de un
+     * rango de la frontera. */
+    private class Relajacion extends RecursiveAction {
+
+        /* Versión de la serialización. */
+        private static final long serialVersionUID = 1L;
+
+        /* El rango de la frontera. */
+        private int desde, hasta;
+        /* Si se relajan las aristas ligeras o las pesadas. */
+        private boolean ligeras;
+
+        /* Crea una relajación para la frontera en [desde, hasta). */
+        public Relajacion(int desde, int hasta, boolean ligeras) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.ligeras = ligeras;
+        }
+
+        /* Divide la relajación o relaja las aristas del rango. Cada vértice
+         * de la frontera escribe los vértices que mejoró en su propio tramo
+         * de la salida, y llena lo que sobra con -1. */
+        @Override protected void compute() {
+            if (hasta - desde > VERTICES_POR_TAREA) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(new Relajacion(desde, medio, ligeras),
+                          new Relajacion(medio, hasta, ligeras));
+                return;
+            }
+            for (int k = desde; k < hasta; k++) {
+                int v = frontera[k];
+                double dv = Double.longBitsToDouble(distancias.get(v));
+                int s = prefijo[k];
+                for (int a = grafica.inicio(v); a < grafica.fin(v); a++) {
+                    double peso = grafica.peso(a);
+                    if ((peso <= delta) != ligeras)
+                        continue;
+                    int u = grafica.destino(a);
+                    if (mejora(u, dv + peso))
+                        salida[s++] = u;
+                }
+                while (s < prefijo[k+1])
+                    salida[s++] = -1;
+            }
+        }
+    }
+
+    /* Número máximo de vértices que relaja una tarea sin dividirse. */
+    private static final int VERTICES_POR_TAREA = 256;
+    /* Número máximo de cubetas; así el arreglo de cubetas puede crecer al
+     * doble sin desbordarse. */
+    private static final int MAXIMO_CUBETAS = 1 << 30;
+    /* Infinito, como bits de un double. */
+    private static final long INFINITO = Double.doubleToLongBits(Double.MAX_VALUE);
+
+    /* La gráfica compacta. */
+    private GraficaCompacta<T> grafica;
+    /* La alberca de hilos. */
+    private ForkJoinPool alberca;
+    /* El ancho de las cubetas. */
+    private double delta;
+    /* Las distancias, como bits de doubles; al ser no negativas, el orden de
+     * los bits es el orden de las distancias. */
+    private AtomicLongArray distancias;
+    /* Las cubetas y cuántos vértices tiene cada una. */
+    private int[][] cubetas;
+    private int[] tamanos;
+    /* La frontera de la fase actual y el inicio de su tramo de salida. */
+    private int[] frontera;
+    private int[] prefijo;
+    private int elementosFrontera;
+    /* Los vértices mejorados en la fase actual. */
+    private int[] salida;
+    /* Los vértices fijados por la cubeta actual. */
+    private int[] fijados;
+    private int elementosFijados;
+    /* Marcas para no repetir vértices en una misma fase o cubeta. */
+    private int[] marcaFase, marcaCubeta;
+    private int fase;
+
+    /**
+     * Construye un calculador de distancias para la gráfica, con la alberca
+     * común de hilos y el peso promedio de las aristas como Δ.
+     * @param grafica la gráfica.
+     */
+    public DeltaStepping(Grafica<T> grafica) {
+        this(grafica.compacta(), ForkJoinPool.commonPool(), 0);
+    }
+
+    /**
+     * Construye un calculador de distancias para la gráfica compacta.
+     * @param grafica la gráfica compacta.
+     * @param alberca la alberca de hilos.
+     * @param delta el ancho de las cubetas; si no es positivo se usa el peso
+     *        promedio de las aristas.
+     */
+    public DeltaStepping(GraficaCompacta<T> grafica, ForkJoinPool alberca,
+                         double delta) {
+        this.grafica = grafica;
+        this.alberca = alberca;
+        if (delta <= 0) {
+            double suma = 0;
+            int aristas = 2 * grafica.getAristas();
+            for (int a = 0; a < aristas; a++)
+                suma += grafica.peso(a);
+            delta = aristas == 0 ? 1 : suma / aristas;
+        }
+        this.delta = delta;
+        int n = grafica.getElementos();
+        distancias = new AtomicLongArray(n);
+        cubetas = new int[16][];
+        tamanos = new int[16];
+        frontera = new int[16];
+        prefijo = new int[17];
+        salida = new int[16];
+        fijados = new int[16];
+        marcaFase = new int[n];
+        marcaCubeta = new int[n];
+    }
+
+    /**
+     * Regresa el ancho de las cubetas.
+     * @return el ancho de las cubetas.
+     */
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Calcula las distancias mínimas desde el elemento a todos los vértices.
+     * @param origen el elemento de origen.
+     * @return la distancia mínima a cada vértice, por su índice en la gráfica
+     *         compacta; {@link Double#MAX_VALUE} para los vértices
+     *         inalcanzables.
+     * @throws java.util.NoSuchElementException si el elemento no está en la
+     *         gráfica.
+     */
+    public double[] distancias(T origen) {
+        return distancias(grafica.indice(origen));
+    }
+
+    /**
+     * Calcula las distancias mínimas desde el vértice a todos los vértices.
+     * @param origen el índice del vértice de origen.
+     * @return la distancia mínima a cada vértice, por su índice en la gráfica
+     *         compacta; {@link Double#MAX_VALUE} para los vértices
+     *         inalcanzables.
+     * @throws IllegalStateException si las distancias necesitan más de
+     *         2<sup>30</sup> cubetas de ancho Δ.
+     */
+    public double[] distancias(int origen) {
+        int n = grafica.getElementos();
+        for (int v = 0; v < n; v++)
+            distancias.set(v, INFINITO);
+        for (int i = 0; i < tamanos.length; i++)
+            tamanos[i] = 0;
+        distancias.set(origen, Double.doubleToLongBits(0));
+        agregaCubeta(0, origen);
+        for (int i = 0; i < cubetas.length; i++) {
+            if (tamanos[i] == 0)
+                continue;
+            fase++;
+            int cubeta = fase;
+            elementosFijados = 0;
+            while (tamanos[i] > 0) {
+                fase++;
+                tomaFrontera(i, cubeta);
+                relaja(true);
+            }
+            elementosFrontera = 0;
+            for (int k = 0; k < elementosFijados; k++)
+                agregaFrontera(fijados[k]);
+            relaja(false);
+            /* Las aristas pesadas mandan a cubetas posteriores, así que la
+             * cubeta ya no recibe vértices. */
+            cubetas[i] = null;
+        }
+        double[] resultado = new double[n];
+        for (int v = 0; v < n; v++)
+            resultado[v] = Double.longBitsToDouble(distancias.get(v));
+        return resultado;
+    }
+
+    /* Mueve la cubeta i a la frontera, descartando los vértices repetidos y
+     * los que ya bajaron de cubeta, y anota los que se fijan. */
+    private void tomaFrontera(int i, int cubeta) {
+        elementosFrontera = 0;
+        int[] vertices = cubetas[i];
+        int tamano = tamanos[i];
+        tamanos[i] = 0;
+        for (int k = 0; k < tamano; k++) {
+            int v = vertices[k];
+            if (marcaFase[v] == fase || cubeta(v) != i)
+                continue;
+            marcaFase[v] = fase;
+            agregaFrontera(v);
+            if (marcaCubeta[v] != cubeta) {
+                marcaCubeta[v] = cubeta;
+                if (elementosFijados == fijados.length)
+                    fijados = crece(fijados, elementosFijados);
+                fijados[elementosFijados++] = v;
+            }
+        }
+    }
+
+    /* Relaja en paralelo las aristas ligeras o pesadas de la frontera, y
+     * reparte en cubetas los vértices mejorados. */
+    private void relaja(boolean ligeras) {
+        if (elementosFrontera == 0)
+            return;
+        if (prefijo.length < elementosFrontera + 1)
+            prefijo = new int[frontera.length + 1];
+        prefijo[0] = 0;
+        for (int k = 0; k < elementosFrontera; k++)
+            prefijo[k+1] = prefijo[k] + grafica.grado(frontera[k]);
+        int total = prefijo[elementosFrontera];
+        if (salida.length < total)
+            salida = new int[Math.max(total, salida.length * 2)];
+        Relajacion relajacion = new Relajacion(0, elementosFrontera, ligeras);
+        if (elementosFrontera <= VERTICES_POR_TAREA)
+            relajacion.compute();
+        else
+            alberca.invoke(relajacion);
+        fase++;
+        for (int s = 0; s < total; s++) {
+            int u = salida[s];
+            if (u == -1 || marcaFase[u] == fase)
+                continue;
+            marcaFase[u] = fase;
+            agregaCubeta(cubeta(u), u);
+        }
+    }
+
+    /* Mejora atómicamente la distancia de u si d es menor. */
+    private boolean mejora(int u, double d) {
+        long nueva = Double.doubleToLongBits(d);
+        while (true) {
+            long actual = distancias.get(u);
+            if (nueva >= actual)
+                return false;
+            if (distancias.compareAndSet(u, actual, nueva))
+                return true;
+        }
+    }
+
+    /* Regresa la cubeta que le corresponde a la distancia actual de v. */
+    private int cubeta(int v) {
+        double cubeta = Double.longBitsToDouble(distancias.get(v)) / delta;
+        if (cubeta >= MAXIMO_CUBETAS)
+            throw new IllegalStateException("Las distancias necesitan más de " +
+                                            MAXIMO_CUBETAS + " cubetas de ancho " + delta);
+        return (int)cubeta;
+    }
+
+    /* Agrega un vértice a la frontera. */
+    private void agregaFrontera(int v) {
+        if (elementosFrontera == frontera.length)
+            frontera = crece(frontera, elementosFrontera);
+        frontera[elementosFrontera++] = v;
+    }
+
+    /* Agrega un vértice a la cubeta i. */
+    private void agregaCubeta(int i, int v) {
+        if (i >= cubetas.length) {
+            int longitud = cubetas.length;
+            while (longitud <= i)
+                longitud *= 2;
+            int[][] nuevas = new int[longitud][];
+            int[] nuevosTamanos = new int[longitud];
+            for (int j = 0; j < cubetas.length; j++) {
+                nuevas[j] = cubetas[j];
+                nuevosTamanos[j] = tamanos[j];
+            }
+            cubetas = nuevas;
+            tamanos = nuevosTamanos;
+        }
+        if (cubetas[i] == null)
+            cubetas[i] = new int[4];
+        else if (tamanos[i] == cubetas[i].length)
+            cubetas[i] = crece(cubetas[i], tamanos[i]);
+        cubetas[i][tamanos[i]++] = v;
+    }
+
+    /* Regresa un arreglo del doble de tamaño con los primeros n enteros. */
+    private static int[] crece(int[] arreglo, int n) {
+        int[] nuevo = new int[arreglo.length * 2];
+        for (int i = 0; i < n; i++)
+            nuevo[i] = arreglo[i];
+        return nuevo;
+    }
+}
@@ -0,0 +1,208 @@
+package mx.unam.ciencias.edd;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>Clase para resolver lotes de consultas de trayectoria mínima
+ * independientes en paralelo.</p>
+ *
+ * <p>Las consultas se reparten entre los hilos de un {@link ForkJoinPool}. La
+ * gráfica se lee de una {@link GraficaCompacta}, que no se modifica, y cada
+ * hilo tiene sus propios arreglos de distancias y anteriores, y su propio
+ * {@link MonticuloAridad}, que se reutilizan de una consulta a otra y se
+ * reinician con una época en lugar de limpiarse. Por eso, a diferencia de
+ * {@link Grafica#dijkstra}, que escribe las distancias en los vértices de la
+ * gráfica, varias consultas pueden correr al mismo tiempo.</p>
+ */
+public class DijkstraLotes<T> {
+
+    /* Clase interna privada para los arreglos de trabajo de cada hilo. */
+    private static class Espacio {
+
+        /* Las distancias tentativas. */
+        private double[] distancia;
+        /* El vértice anterior de cada vértice. */
+        private int[] anterior;
+        /* La época en que se tocó cada vértice. */
+        private int[] epoca;
+        /* El montículo de vértices, ordenado por distancia. */
+        private MonticuloAridad monticulo;
+        /* La época actual. */
+        private int actual;
+
+        /* Crea los arreglos para n vértices. */
+        public Espacio(int n) {
+            distancia = new double[n];
+            anterior = new int[n];
+            epoca = new int[n];
+            monticulo = new MonticuloAridad(n);
+        }
+
+        /* Calcula la distancia mínima de origen a destino; se detiene al
+         * fijar el destino. */
+        public double dijkstra(GraficaCompacta<?> grafica, int origen, int destino) {
+            actual++;
+            monticulo.limpia();
+            toca(origen, 0, -1);
+            while (!monticulo.esVacia()) {
+                int u = monticulo.elimina();
+                if (u == destino)
+                    return distancia[u];
+                double du = distancia[u];
+                for (int a = grafica.inicio(u); a < grafica.fin(u); a++)
+                    toca(grafica.destino(a), du + grafica.peso(a), u);
+            }
+            return Double.MAX_VALUE;
+        }
+
+        /* Mejora, si se puede, la distancia del vértice. */
+        private void toca(int v, double d, int desde) {
+            if (epoca[v] != actual) {
+                epoca[v] = actual;
+                distancia[v] = d;
+                anterior[v] = desde;
+                monticulo.agrega(v, d);
+            } else if (monticulo.contiene(v) && d < distancia[v]) {
+                distancia[v] = d;
+                anterior[v] = desde;
+                monticulo.agrega(v, d);
+            }
+        }
+
+        /* Regresa la trayectoria de origen a destino de la última búsqueda. */
+        public int[] trayectoria(int destino) {
+            int longitud = 0;
+            for (int v = destino; v != -1; v = anterior[v])
+                longitud++;
+            int[] trayectoria = new int[longitud];
+            for (int v = destino; v != -1; v = anterior[v])
+                trayectoria[--longitud] = v;
+            return trayectoria;
+        }
+    }
+
+    /* Clase interna privada para tareas sobre un rango de consultas. */
+    private class Tarea extends RecursiveAction {
+
+        /* Versión de la serialización. */
+        private static final long serialVersionUID = 1L;
+
+        /* El rango de consultas de la tarea. */
+        private int desde, hasta;
+        /* Los orígenes y destinos de las consultas. */
+        private int[] origenes, destinos;
+        /* Las distancias que se calculan. */
+        private double[] distancias;
+        /* Las trayectorias que se calculan, o null si no se piden. */
+        private int[][] trayectorias;
+
+        /* Crea una tarea para las consultas en [desde, hasta). */
+        public Tarea(int desde, int hasta, int[] origenes, int[] destinos,
+                     double[] distancias, int[][] trayectorias) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.origenes = origenes;
+            this.destinos = destinos;
+            this.distancias = distancias;
+            this.trayectorias = trayectorias;
+        }
+
+        /* Divide la tarea o resuelve sus consultas. */
+        @Override protected void compute() {
+            if (hasta - desde > CONSULTAS_POR_TAREA) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(new Tarea(desde, medio, origenes, destinos, distancias, trayectorias),
+                          new Tarea(medio, hasta, origenes, destinos, distancias, trayectorias));
+                return;
+            }
+            Espacio espacio = espacios.get();
+            for (int i = desde; i < hasta; i++) {
+                distancias[i] = espacio.dijkstra(grafica, origenes[i], destinos[i]);
+                if (trayectorias != null)
+                    trayectorias[i] = distancias[i] == Double.MAX_VALUE ?
+                        new int[0] : espacio.trayectoria(destinos[i]);
+            }
+        }
+    }
+
+    /* Número máximo de consultas que resuelve una tarea sin dividirse. */
+    private static final int CONSULTAS_POR_TAREA = 16;
+
+    /* La gráfica compacta. */
+    private GraficaCompacta<T> grafica;
+    /* La alberca de hilos. */
+    private ForkJoinPool alberca;
+    /* Los arreglos de trabajo de cada hilo. */
+    private ThreadLocal<Espacio> espacios;
+
+    /**
+     * Construye un resolvedor de lotes para la gráfica, que usa la alberca
+     * común de hilos.
+     * @param grafica la gráfica.
+     */
+    public DijkstraLotes(Grafica<T> grafica) {
+        this(grafica.compacta(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construye un resolvedor de lotes para la gráfica compacta, que usa la
+     * alberca de hilos recibida.
+     * @param grafica la gráfica compacta.
+     * @param alberca la alberca de hilos.
+     */
+    public DijkstraLotes(GraficaCompacta<T> grafica, ForkJoinPool alberca) {
+        this.grafica = grafica;
+        this.alberca = alberca;
+        int n = grafica.getElementos();
+        espacios = ThreadLocal.withInitial(() -> new Espacio(n));
+    }
+
+    /**
+     * Regresa la gráfica compacta sobre la que se resuelven las consultas.
+     * @return la gráfica compacta.
+     */
+    public GraficaCompacta<T> getGrafica() {
+        return grafica;
+    }
+
+    /**
+     * Calcula las distancias mínimas de un lote de consultas. La
+     * <i>i</i>-ésima consulta va de <code>origenes[i]</code> a
+     * <code>destinos[i]</code>, dados por su índice en la gráfica compacta.
+     * @param origenes los índices de los orígenes.
+     * @param destinos los índices de los destinos.
+     * @return la distancia mínima de cada consulta, o {@link
+     *         Double#MAX_VALUE} si no hay trayectoria.
+     * @throws IllegalArgumentException si los arreglos son de distinto tamaño.
+     */
+    public double[] distancias(int[] origenes, int[] destinos) {
+        return resuelve(origenes, destinos, null);
+    }
+
+    /**
+     * Calcula las trayectorias mínimas de un lote de consultas. La
+     * <i>i</i>-ésima consulta va de <code>origenes[i]</code> a
+     * <code>destinos[i]</code>, dados por su índice en la gráfica compacta.
+     * @param origenes los índices de los orígenes.
+     * @param destinos los índices de los destinos.
+     * @return los índices de los vértices de la trayectoria de cada consulta;
+     *         un arreglo vacío si no hay trayectoria.
+     * @throws IllegalArgumentException si los arreglos son de distinto tamaño.
+     */
+    public int[][] trayectorias(int[] origenes, int[] destinos) {
+        int[][] trayectorias = new int[origenes.length][];
+        resuelve(origenes, destinos, trayectorias);
+        return trayectorias;
+    }
+
+    /* Resuelve el lote en la alberca de hilos. */
+    private double[] resuelve(int[] origenes, int[] destinos, int[][] trayectorias) {
+        if (origenes.length != destinos.length)
+            throw new IllegalArgumentException("Hay distinto numero de origenes y destinos");
+        double[] distancias = new double[origenes.length];
+        alberca.invoke(new Tarea(0, origenes.length, origenes, destinos,
+                                 distancias, trayectorias));
+        return distancias;
+    }
+}
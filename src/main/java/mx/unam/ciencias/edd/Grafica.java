@@ -133,6 +133,13 @@ public class Grafica<T> implements Coleccion<T> {
         public boolean seSiguen(Grafica<T>.Vertice v, Grafica<T>.Vecino a);
     }
 
+    /* Costos medidos de los dos Dijkstra sobre la representación compacta,
+     * en nanosegundos: por n² del denso, por n log n del montículo y la
+     * diferencia por arista entre los dos (ver esDensa). */
+    private static final double COSTO_DENSA = 1.05;
+    private static final double COSTO_MONTICULO = 7.8;
+    private static final double COSTO_ARISTA = 0.3;
+
     /* Vértices. */
     private Diccionario<T, Vertice> vertices;
     /* Número de aristas. */
@@ -366,19 +373,39 @@ public class Grafica<T> implements Coleccion<T> {
     }
 
     /**
-     * Nos dice si la gráfica es conexa.
+     * Nos dice si la gráfica es conexa. Une los extremos de cada arista en
+     * unos {@link ConjuntosDisjuntos}, sin recorrer ni colorear los vértices.
      * @return <code>true</code> si la gráfica es conexa, <code>false</code> en
      *         otro caso.
      */
     public boolean esConexa() {
-        for (Vertice vertice : vertices){
-            recorrido(vertice.elemento, e -> {}, new Cola<Vertice>());
-            break;
-        }
+        return conjuntos().getConjuntos() <= 1;
+    }
+
+    /**
+     * Regresa las componentes conexas de la gráfica. Cada elemento se asocia
+     * al número de su componente, de 0 a <i>k</i>-1, así que dos elementos
+     * están en la misma componente si y sólo si tienen el mismo número.
+     * @return el número de componente de cada elemento.
+     */
+    public Diccionario<T, Integer> componentes() {
+        int[] etiquetas = conjuntos().etiquetas();
+        Diccionario<T, Integer> componentes = new Diccionario<>(Math.max(getElementos(), 1));
         for (Vertice vertice : vertices)
-            if(vertice.color == Color.ROJO)
-                return false;
-        return true;
+            componentes.agrega(vertice.elemento, etiquetas[vertice.indice]);
+        return componentes;
+    }
+
+    /* Numera los vértices y une los extremos de cada arista. */
+    private ConjuntosDisjuntos conjuntos() {
+        int i = 0;
+        for (Vertice vertice : vertices)
+            vertice.indice = i++;
+        ConjuntosDisjuntos conjuntos = new ConjuntosDisjuntos(i);
+        for (Vertice vertice : vertices)
+            for (Vecino vecino : vertice.vecinos)
+                conjuntos.une(vertice.indice, vecino.vecino.indice);
+        return conjuntos;
     }
 
     /**
@@ -518,6 +545,37 @@ public class Grafica<T> implements Coleccion<T> {
         return new Iterador();
     }
 
+    /**
+     * Regresa una representación compacta de la gráfica, con los vértices
+     * numerados en el orden en que se recorren y sus aristas en arreglos de
+     * primitivos. La representación no refleja cambios posteriores a la
+     * gráfica.
+     * @return una representación compacta de la gráfica.
+     */
+    public GraficaCompacta<T> compacta() {
+        int n = getElementos();
+        Object[] elementos = new Object[n];
+        int[] inicio = new int[n + 1];
+        int i = 0;
+        for (Vertice vertice : vertices) {
+            vertice.indice = i;
+            elementos[i] = vertice.elemento;
+            inicio[i + 1] = inicio[i] + vertice.vecinos.getElementos();
+            i++;
+        }
+        int[] destinos = new int[inicio[n]];
+        double[] pesos = new double[inicio[n]];
+        i = 0;
+        for (Vertice vertice : vertices) {
+            int a = inicio[i++];
+            for (Vecino vecino : vertice.vecinos) {
+                destinos[a] = vecino.vecino.indice;
+                pesos[a++] = vecino.peso;
+            }
+        }
+        return new GraficaCompacta<>(elementos, inicio, destinos, pesos);
+    }
+
     /**
      * Calcula una trayectoria de distancia mínima entre dos vértices.
      * @param origen el vértice de origen.
@@ -574,21 +632,135 @@ public class Grafica<T> implements Coleccion<T> {
             vertice.distancia = Double.MAX_VALUE;
         Vertice v = (Vertice) vertice(origen);
         v.distancia = 0;
-        MonticuloDijkstra<Vertice> monticulo;
-        int n = getElementos();
-        if (aristas > ((n*(n - 1))/2)-n)
-            monticulo = new MonticuloArreglo<>(vertices, vertices.getElementos());
+        if (esDensa(getElementos(), aristas))
+            dijkstraDensa(v);
         else
-            monticulo = new MonticuloMinimo<>(vertices, vertices.getElementos());
-        while (!monticulo.esVacia()){
+            dijkstraDispersa(v);
+        return reconstruirTrayectoria((vertice, vecino) -> vecino.vecino.distancia + vecino.peso == vertice.distancia, (Vertice) vertice(destino));
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo del elemento de origen al más cercano de
+     * varios destinos, con una sola búsqueda que se detiene en cuanto fija a
+     * uno de ellos.
+     * @param origen el elemento de origen.
+     * @param destinos los elementos de destino.
+     * @return una trayectoria de peso mínimo del origen al destino más
+     *         cercano. Si ningún destino es alcanzable, regresa una lista
+     *         vacía.
+     * @throws NoSuchElementException si alguno de los elementos no está en la
+     *         gráfica.
+     */
+    public Lista<VerticeGrafica<T>> dijkstra(T origen, Coleccion<T> destinos) {
+        Lista<T> origenes = new Lista<>();
+        origenes.agrega(origen);
+        return dijkstra(origenes, destinos);
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo de cualquiera de varios orígenes al más
+     * cercano de varios destinos. Todos los orígenes empiezan con distancia
+     * cero en la misma búsqueda, que se detiene en cuanto fija a un destino.
+     * @param origenes los elementos de origen.
+     * @param destinos los elementos de destino.
+     * @return una trayectoria de peso mínimo del origen más cercano al
+     *         destino más cercano; el primer vértice es el origen y el último
+     *         el destino. Si ningún destino es alcanzable, regresa una lista
+     *         vacía.
+     * @throws NoSuchElementException si alguno de los elementos no está en la
+     *         gráfica.
+     */
+    public Lista<VerticeGrafica<T>> dijkstra(Coleccion<T> origenes, Coleccion<T> destinos) {
+        Conjunto<T> objetivos = new Conjunto<>(Math.max(destinos.getElementos(), 1));
+        for (T destino : destinos) {
+            vertices.get(destino);
+            objetivos.agrega(destino);
+        }
+        for (Vertice vertice : vertices)
+            vertice.distancia = Double.MAX_VALUE;
+        MonticuloMinimo<Vertice> monticulo = new MonticuloMinimo<>();
+        for (T origen : origenes) {
+            Vertice v = vertices.get(origen);
+            if (v.distancia != 0) {
+                v.distancia = 0;
+                monticulo.agrega(v);
+            }
+        }
+        while (!monticulo.esVacia()) {
             Vertice raiz = monticulo.elimina();
-            for (Vecino vecino : raiz.vecinos)
-                if (vecino.vecino.distancia > raiz.distancia + vecino.peso){
-                    vecino.vecino.distancia = raiz.distancia + vecino.peso;
-                    monticulo.reordena(vecino.vecino);
+            if (objetivos.contiene(raiz.elemento))
+                return reconstruirTrayectoria((vertice, vecino) -> vecino.vecino.distancia + vecino.peso == vertice.distancia, raiz);
+            for (Vecino vecino : raiz.vecinos) {
+                double distancia = raiz.distancia + vecino.peso;
+                if (distancia < vecino.vecino.distancia) {
+                    boolean nuevo = vecino.vecino.distancia == Double.MAX_VALUE;
+                    vecino.vecino.distancia = distancia;
+                    if (nuevo)
+                        monticulo.agrega(vecino.vecino);
+                    else
+                        monticulo.reordena(vecino.vecino);
+                }
+            }
+        }
+        return new Lista<VerticeGrafica<T>>();
+    }
+
+    /* Nos dice si conviene el Dijkstra denso. Medidos en gráficas aleatorias
+     * con n de 50 a 2000 y m de n a casi n²/2, los dos recorren cada arista
+     * en unos 4 ns (4.2 el denso y 4.5 el del montículo); el denso además
+     * busca el mínimo recorriendo un arreglo en cada paso, 1.05 n² ns, y el
+     * del montículo saca cada vértice una vez, 7.8 n log n ns (cada arista
+     * casi nunca reordena). El denso sólo ganó en gráficas casi completas de
+     * unos 50 vértices o menos: con n = 50 y el 89% de las aristas tardó
+     * 5.6 µs contra 6.3 µs; con n = 100 y el 90% ya tardó 34 µs contra 25, y
+     * con n = 2000 y el 95%, 10.7 ms contra 9.5. Con estos costos el cruce
+     * queda en n = 48 para la gráfica completa; abajo de unos 38 vértices
+     * conviene el denso aunque la gráfica sea un árbol. */
+    private static boolean esDensa(int n, int m) {
+        if (n < 2)
+            return false;
+        double logaritmo = Math.log(n) / Math.log(2);
+        return COSTO_DENSA * n * n < COSTO_MONTICULO * n * logaritmo + COSTO_ARISTA * m;
+    }
+
+    /* Dijkstra con un montículo 4-ario de enteros sobre la representación
+     * compacta. Al terminar escribe las distancias en los vértices. */
+    private void dijkstraDispersa(Vertice origen) {
+        GraficaCompacta<T> compacta = compacta();
+        double[] distancia = compacta.dijkstra(origen.indice, new MonticuloAridad(compacta.getElementos()));
+        for (Vertice vertice : vertices)
+            vertice.distancia = distancia[vertice.indice];
+    }
+
+    /* Dijkstra en O(n²) sobre la representación compacta. Al terminar
+     * escribe las distancias en los vértices, igual que con el montículo. */
+    private void dijkstraDensa(Vertice origen) {
+        GraficaCompacta<T> compacta = compacta();
+        int n = compacta.getElementos();
+        double[] distancia = new double[n];
+        boolean[] fijado = new boolean[n];
+        for (int i = 0; i < n; i++)
+            distancia[i] = Double.MAX_VALUE;
+        distancia[origen.indice] = 0;
+        for (int k = 0; k < n; k++) {
+            int u = -1;
+            double minima = Double.MAX_VALUE;
+            for (int i = 0; i < n; i++)
+                if (!fijado[i] && distancia[i] < minima) {
+                    u = i;
+                    minima = distancia[i];
                 }
+            if (u == -1)
+                break;
+            fijado[u] = true;
+            for (int a = compacta.inicio(u); a < compacta.fin(u); a++) {
+                int w = compacta.destino(a);
+                if (!fijado[w] && minima + compacta.peso(a) < distancia[w])
+                    distancia[w] = minima + compacta.peso(a);
+            }
         }
-        return reconstruirTrayectoria((vertice, vecino) -> vecino.vecino.distancia + vecino.peso == vertice.distancia, (Vertice) vertice(destino));
+        for (Vertice vertice : vertices)
+            vertice.distancia = distancia[vertice.indice];
     }
 
     private Lista<VerticeGrafica<T>> reconstruirTrayectoria(BuscadorCamino<T> buscador, Vertice destino){
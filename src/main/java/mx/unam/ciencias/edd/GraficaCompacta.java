@@ -0,0 +1,159 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Clase para representaciones compactas de gráficas. Los vértices se numeran
+ * de 0 a <i>n</i>-1 y las aristas de cada vértice se guardan de forma contigua
+ * en arreglos de primitivos, de manera que los algoritmos que la recorren no
+ * necesitan objetos por vértice. Cada arista no dirigida aparece dos veces,
+ * una en cada uno de sus extremos. La representación no se puede modificar,
+ * por lo que varios hilos pueden leerla al mismo tiempo.
+ */
+public class GraficaCompacta<T> {
+
+    /* Los elementos de la gráfica, por índice. */
+    private Object[] elementos;
+    /* Los índices de los elementos. */
+    private Diccionario<T, Integer> indices;
+    /* Dónde empiezan las aristas de cada vértice; tiene n+1 entradas. */
+    private int[] inicio;
+    /* El vértice destino de cada arista. */
+    private int[] destinos;
+    /* El peso de cada arista. */
+    private double[] pesos;
+
+    /**
+     * Construye la representación a partir de los arreglos ya llenos. Las
+     * aristas del vértice <i>v</i> son las de índices en
+     * [<code>inicio[v]</code>, <code>inicio[v+1]</code>), y cada arista no
+     * dirigida debe aparecer en sus dos extremos.
+     * @param elementos los elementos de los vértices, por índice.
+     * @param inicio dónde empiezan las aristas de cada vértice; con
+     *        <i>n</i>+1 entradas.
+     * @param destinos el vértice destino de cada arista.
+     * @param pesos el peso de cada arista.
+     */
+    public GraficaCompacta(Object[] elementos, int[] inicio,
+                           int[] destinos, double[] pesos) {
+        this.elementos = elementos;
+        this.inicio = inicio;
+        this.destinos = destinos;
+        this.pesos = pesos;
+        indices = new Diccionario<>(elementos.length);
+        for (int i = 0; i < elementos.length; i++)
+            indices.agrega(get(i), i);
+    }
+
+    /**
+     * Regresa el número de vértices.
+     * @return el número de vértices.
+     */
+    public int getElementos() {
+        return elementos.length;
+    }
+
+    /**
+     * Regresa el número de aristas no dirigidas.
+     * @return el número de aristas no dirigidas.
+     */
+    public int getAristas() {
+        return destinos.length / 2;
+    }
+
+    /**
+     * Regresa el índice del vértice que contiene al elemento.
+     * @param elemento el elemento.
+     * @return el índice del vértice que contiene al elemento.
+     * @throws NoSuchElementException si el elemento no está en la gráfica.
+     */
+    public int indice(T elemento) {
+        if (!indices.contiene(elemento))
+            throw new NoSuchElementException("El elemento no esta en la grafica");
+        return indices.get(elemento);
+    }
+
+    /**
+     * Regresa el elemento del vértice con el índice dado.
+     * @param i el índice del vértice.
+     * @return el elemento del vértice.
+     */
+    @SuppressWarnings("unchecked") public T get(int i) {
+        return (T)elementos[i];
+    }
+
+    /**
+     * Regresa el índice de la primera arista del vértice.
+     * @param v el índice del vértice.
+     * @return el índice de la primera arista del vértice.
+     */
+    public int inicio(int v) {
+        return inicio[v];
+    }
+
+    /**
+     * Regresa el índice siguiente a la última arista del vértice.
+     * @param v el índice del vértice.
+     * @return el índice siguiente a la última arista del vértice.
+     */
+    public int fin(int v) {
+        return inicio[v+1];
+    }
+
+    /**
+     * Regresa el grado del vértice.
+     * @param v el índice del vértice.
+     * @return el grado del vértice.
+     */
+    public int grado(int v) {
+        return inicio[v+1] - inicio[v];
+    }
+
+    /**
+     * Regresa el vértice destino de la arista.
+     * @param a el índice de la arista.
+     * @return el índice del vértice destino.
+     */
+    public int destino(int a) {
+        return destinos[a];
+    }
+
+    /**
+     * Regresa el peso de la arista.
+     * @param a el índice de la arista.
+     * @return el peso de la arista.
+     */
+    public double peso(int a) {
+        return pesos[a];
+    }
+
+    /**
+     * Calcula con el algoritmo de Dijkstra las distancias mínimas desde el
+     * vértice a todos los vértices, usando el montículo recibido.
+     * @param origen el índice del vértice de origen.
+     * @param monticulo el montículo; se limpia antes de usarse.
+     * @return la distancia mínima a cada vértice, por índice; {@link
+     *         Double#MAX_VALUE} para los vértices inalcanzables.
+     */
+    public double[] dijkstra(int origen, MonticuloEnteros monticulo) {
+        double[] distancias = new double[elementos.length];
+        for (int v = 0; v < distancias.length; v++)
+            distancias[v] = Double.MAX_VALUE;
+        monticulo.limpia();
+        distancias[origen] = 0;
+        monticulo.agrega(origen, 0);
+        while (!monticulo.esVacia()) {
+            int u = monticulo.elimina();
+            double du = distancias[u];
+            for (int a = inicio[u]; a < inicio[u+1]; a++) {
+                int v = destinos[a];
+                double d = du + pesos[a];
+                if (d < distancias[v]) {
+                    distancias[v] = d;
+                    monticulo.agrega(v, d);
+                }
+            }
+        }
+        return distancias;
+    }
+}
@@ -0,0 +1,20 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Interfaz para heurísticas de búsqueda sobre gráficas. Una heurística estima
+ * la distancia de un elemento al destino; para que las búsquedas informadas
+ * encuentren trayectorias mínimas, la estimación nunca debe ser mayor que la
+ * distancia real, y para cada arista (<i>a</i>, <i>b</i>) de peso <i>p</i>
+ * debe cumplirse que <i>h(a)</i> ≤ <i>p</i> + <i>h(b)</i>.
+ */
+@FunctionalInterface
+public interface Heuristica<T> {
+
+    /**
+     * Estima la distancia del elemento al destino.
+     * @param elemento el elemento.
+     * @param destino el destino.
+     * @return una cota inferior de la distancia del elemento al destino.
+     */
+    public double estima(T elemento, T destino);
+}
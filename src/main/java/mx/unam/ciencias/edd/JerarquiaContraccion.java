@@ -0,0 +1,515 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para jerarquías de contracción (<em>contraction hierarchies</em>)
+ * sobre gráficas con pesos.</p>
+ *
+ * <p>Al construirse, la jerarquía contrae los vértices uno por uno, en el
+ * orden dado por su diferencia de aristas (los atajos que habría que agregar
+ * menos las aristas que desaparecen). Al contraer un vértice se agrega un
+ * atajo entre cada par de vecinos cuya trayectoria mínima pasa por él, a
+ * menos que una búsqueda local encuentre un testigo más corto. Después cada
+ * consulta es una búsqueda bidireccional que solo sube en la jerarquía, y
+ * visita una fracción muy pequeña de los vértices.</p>
+ *
+ * <p>El preprocesamiento se paga una sola vez; la jerarquía no refleja
+ * cambios posteriores a la gráfica. Las consultas reutilizan arreglos
+ * internos, por lo que una jerarquía no debe consultarse desde varios hilos
+ * al mismo tiempo.</p>
+ */
+public class JerarquiaContraccion<T> {
+
+    /* Clase interna privada para búsquedas de Dijkstra reutilizables. Los
+     * arreglos se reinician con una época en lugar de limpiarse. */
+    private class Busqueda {
+
+        /* Las distancias tentativas. */
+        private double[] distancia;
+        /* El vértice anterior en la búsqueda. */
+        private int[] anterior;
+        /* La época en que se tocó cada vértice. */
+        private int[] epoca;
+        /* El montículo de la búsqueda. */
+        private MonticuloAridad monticulo;
+        /* La época actual. */
+        private int actual;
+
+        /* Crea una búsqueda para n vértices. */
+        public Busqueda(int n) {
+            distancia = new double[n];
+            anterior = new int[n];
+            epoca = new int[n];
+            monticulo = new MonticuloAridad(n);
+        }
+
+        /* Comienza una nueva búsqueda. */
+        public void reinicia() {
+            actual++;
+            monticulo.limpia();
+        }
+
+        /* Nos dice si la búsqueda actual ya tocó al vértice. */
+        public boolean toco(int v) {
+            return epoca[v] == actual;
+        }
+
+        /* Regresa la distancia tentativa del vértice. */
+        public double distancia(int v) {
+            return epoca[v] == actual ? distancia[v] : Double.MAX_VALUE;
+        }
+
+        /* Mejora, si se puede, la distancia del vértice. */
+        public void toca(int v, double d, int desde) {
+            if (epoca[v] != actual) {
+                epoca[v] = actual;
+                distancia[v] = d;
+                anterior[v] = desde;
+                monticulo.agrega(v, d);
+            } else if (d < distancia[v] && monticulo.contiene(v)) {
+                distancia[v] = d;
+                anterior[v] = desde;
+                monticulo.agrega(v, d);
+            }
+        }
+
+        /* Regresa la menor distancia en el montículo. */
+        public double minimo() {
+            return monticulo.esVacia() ? Double.MAX_VALUE :
+                distancia[monticulo.minimo()];
+        }
+
+        /* Saca el vértice de menor distancia del montículo. */
+        public int saca() {
+            return monticulo.elimina();
+        }
+    }
+
+    /* Máximo de vértices que fija una búsqueda de testigos. */
+    private static final int LIMITE_TESTIGOS = 64;
+
+    /* La gráfica compacta original. */
+    private GraficaCompacta<T> grafica;
+    /* El nivel de cada vértice en la jerarquía. */
+    private int[] nivel;
+    /* Dónde empiezan las aristas ascendentes de cada vértice. */
+    private int[] inicio;
+    /* El destino de cada arista ascendente. */
+    private int[] destinos;
+    /* El peso de cada arista ascendente. */
+    private double[] pesos;
+    /* El vértice contraído que cada atajo evita; -1 si no es atajo. */
+    private int[] medios;
+    /* El número de atajos agregados. */
+    private int atajos;
+    /* Las búsquedas hacia adelante y hacia atrás. */
+    private Busqueda adelante, atras;
+    /* La mejor distancia encontrada en la última consulta. */
+    private double mejor;
+    /* Los vértices de la última trayectoria y cuántos son. */
+    private int[] camino;
+    private int longitud;
+    /* Pila auxiliar para deshacer atajos. */
+    private int[] pila;
+
+    /* Adyacencias dinámicas, solo durante la contracción. */
+    private int[][] ady;
+    private double[][] adyPeso;
+    private int[][] adyMedio;
+    private int[] adyGrado;
+    /* Si el vértice ya fue contraído. */
+    private boolean[] contraido;
+    /* Cuántos vecinos de cada vértice ya fueron contraídos. */
+    private int[] vecinosContraidos;
+    /* La búsqueda de testigos. */
+    private Busqueda testigos;
+
+    /**
+     * Construye la jerarquía de contracción de la gráfica.
+     * @param grafica la gráfica a preprocesar.
+     */
+    public JerarquiaContraccion(Grafica<T> grafica) {
+        this.grafica = grafica.compacta();
+        int n = this.grafica.getElementos();
+        nivel = new int[n];
+        inicializaAdyacencias();
+        contrae();
+        construyeAscendente();
+        ady = null;
+        adyPeso = null;
+        adyMedio = null;
+        adyGrado = null;
+        contraido = null;
+        vecinosContraidos = null;
+        testigos = null;
+        adelante = new Busqueda(n);
+        atras = new Busqueda(n);
+        camino = new int[16];
+        pila = new int[16];
+    }
+
+    /**
+     * Regresa el número de atajos que agregó la contracción.
+     * @return el número de atajos que agregó la contracción.
+     */
+    public int getAtajos() {
+        return atajos;
+    }
+
+    /**
+     * Regresa el índice del vértice que contiene al elemento.
+     * @param elemento el elemento.
+     * @return el índice del vértice que contiene al elemento.
+     * @throws NoSuchElementException si el elemento no está en la gráfica.
+     */
+    public int indice(T elemento) {
+        return grafica.indice(elemento);
+    }
+
+    /**
+     * Regresa el elemento del vértice con el índice dado.
+     * @param i el índice del vértice.
+     * @return el elemento del vértice.
+     */
+    public T get(int i) {
+        return grafica.get(i);
+    }
+
+    /**
+     * Calcula la distancia mínima entre dos elementos de la gráfica.
+     * @param origen el elemento de origen.
+     * @param destino el elemento de destino.
+     * @return la distancia mínima entre los elementos, o {@link
+     *         Double#MAX_VALUE} si están en componentes conexas distintas.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public double distancia(T origen, T destino) {
+        return distancia(indice(origen), indice(destino));
+    }
+
+    /**
+     * Calcula la distancia mínima entre dos vértices, dados por su índice.
+     * @param origen el índice del vértice de origen.
+     * @param destino el índice del vértice de destino.
+     * @return la distancia mínima entre los vértices, o {@link
+     *         Double#MAX_VALUE} si están en componentes conexas distintas.
+     */
+    public double distancia(int origen, int destino) {
+        busca(origen, destino);
+        return mejor;
+    }
+
+    /**
+     * Calcula una trayectoria de peso mínimo entre dos elementos de la
+     * gráfica.
+     * @param origen el elemento de origen.
+     * @param destino el elemento de destino.
+     * @return una lista con los elementos de una trayectoria de peso mínimo
+     *         entre <code>origen</code> y <code>destino</code>. Si los
+     *         elementos están en componentes conexas distintas, regresa una
+     *         lista vacía.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public Lista<T> trayectoria(T origen, T destino) {
+        Lista<T> lista = new Lista<>();
+        for (int v : trayectoria(indice(origen), indice(destino)))
+            lista.agrega(grafica.get(v));
+        return lista;
+    }
+
+    /**
+     * Calcula una trayectoria de peso mínimo entre dos vértices, dados por su
+     * índice.
+     * @param origen el índice del vértice de origen.
+     * @param destino el índice del vértice de destino.
+     * @return los índices de los vértices de una trayectoria de peso mínimo
+     *         entre <code>origen</code> y <code>destino</code>. Si los
+     *         vértices están en componentes conexas distintas, regresa un
+     *         arreglo vacío.
+     */
+    public int[] trayectoria(int origen, int destino) {
+        longitud = 0;
+        int encuentro = busca(origen, destino);
+        if (encuentro == -1)
+            return new int[0];
+        for (int v = encuentro; v != -1; v = adelante.anterior[v])
+            agrega(v);
+        int subida = longitud;
+        for (int i = 0; i < subida / 2; i++) {
+            int t = camino[i];
+            camino[i] = camino[subida - 1 - i];
+            camino[subida - 1 - i] = t;
+        }
+        for (int i = 1; i < subida; i++)
+            desempaca(camino[i-1], camino[i]);
+        int previo = encuentro;
+        for (int v = atras.anterior[encuentro]; v != -1; v = atras.anterior[v]) {
+            desempaca(previo, v);
+            previo = v;
+        }
+        int[] trayectoria = new int[longitud - subida + 1];
+        trayectoria[0] = origen;
+        for (int i = subida; i < longitud; i++)
+            trayectoria[i - subida + 1] = camino[i];
+        return trayectoria;
+    }
+
+    /* Hace la búsqueda bidireccional ascendente; regresa el vértice donde se
+     * encuentran las búsquedas, o -1 si no hay trayectoria. */
+    private int busca(int origen, int destino) {
+        adelante.reinicia();
+        atras.reinicia();
+        adelante.toca(origen, 0, -1);
+        atras.toca(destino, 0, -1);
+        mejor = Double.MAX_VALUE;
+        int encuentro = -1;
+        while (true) {
+            double minimoAdelante = adelante.minimo();
+            double minimoAtras = atras.minimo();
+            if (Math.min(minimoAdelante, minimoAtras) >= mejor)
+                break;
+            Busqueda busqueda = minimoAdelante <= minimoAtras ? adelante : atras;
+            Busqueda otra = busqueda == adelante ? atras : adelante;
+            int u = busqueda.saca();
+            double du = busqueda.distancia(u);
+            if (otra.toco(u) && du + otra.distancia(u) < mejor) {
+                mejor = du + otra.distancia(u);
+                encuentro = u;
+            }
+            for (int a = inicio[u]; a < inicio[u+1]; a++)
+                busqueda.toca(destinos[a], du + pesos[a], u);
+        }
+        return encuentro;
+    }
+
+    /* Agrega al camino los vértices de la arista de u a v, sin u, deshaciendo
+     * los atajos. */
+    private void desempaca(int u, int v) {
+        int tope = 0;
+        pila[tope++] = u;
+        pila[tope++] = v;
+        while (tope > 0) {
+            int b = pila[--tope];
+            int a = pila[--tope];
+            int m = medio(a, b);
+            if (m == -1) {
+                agrega(b);
+                continue;
+            }
+            if (tope + 4 > pila.length)
+                pila = crece(pila, tope);
+            pila[tope++] = m;
+            pila[tope++] = b;
+            pila[tope++] = a;
+            pila[tope++] = m;
+        }
+    }
+
+    /* Agrega un vértice al camino. */
+    private void agrega(int v) {
+        if (longitud == camino.length)
+            camino = crece(camino, longitud);
+        camino[longitud++] = v;
+    }
+
+    /* Regresa un arreglo del doble de tamaño con los primeros n enteros. */
+    private static int[] crece(int[] arreglo, int n) {
+        int[] nuevo = new int[arreglo.length * 2];
+        for (int i = 0; i < n; i++)
+            nuevo[i] = arreglo[i];
+        return nuevo;
+    }
+
+    /* Regresa el vértice que evita la arista ascendente entre a y b. */
+    private int medio(int a, int b) {
+        int bajo = nivel[a] < nivel[b] ? a : b;
+        int alto = bajo == a ? b : a;
+        for (int i = inicio[bajo]; i < inicio[bajo+1]; i++)
+            if (destinos[i] == alto)
+                return medios[i];
+        throw new IllegalStateException("No existe la arista en la jerarquia");
+    }
+
+    /* Copia las aristas de la gráfica a las adyacencias dinámicas. */
+    private void inicializaAdyacencias() {
+        int n = grafica.getElementos();
+        ady = new int[n][];
+        adyPeso = new double[n][];
+        adyMedio = new int[n][];
+        adyGrado = new int[n];
+        for (int v = 0; v < n; v++) {
+            int grado = grafica.grado(v);
+            ady[v] = new int[Math.max(grado, 2)];
+            adyPeso[v] = new double[ady[v].length];
+            adyMedio[v] = new int[ady[v].length];
+            for (int a = grafica.inicio(v); a < grafica.fin(v); a++) {
+                int i = adyGrado[v]++;
+                ady[v][i] = grafica.destino(a);
+                adyPeso[v][i] = grafica.peso(a);
+                adyMedio[v][i] = -1;
+            }
+        }
+    }
+
+    /* Contrae todos los vértices, en orden de diferencia de aristas. */
+    private void contrae() {
+        int n = grafica.getElementos();
+        contraido = new boolean[n];
+        vecinosContraidos = new int[n];
+        testigos = new Busqueda(n);
+        MonticuloAridad monticulo = new MonticuloAridad(n);
+        for (int v = 0; v < n; v++)
+            monticulo.agrega(v, prioridad(v));
+        int siguienteNivel = 0;
+        while (!monticulo.esVacia()) {
+            int v = monticulo.elimina();
+            double prioridad = prioridad(v);
+            if (!monticulo.esVacia() &&
+                prioridad > monticulo.getLlave(monticulo.minimo())) {
+                monticulo.agrega(v, prioridad);
+                continue;
+            }
+            atajos += atajos(v, true);
+            contraido[v] = true;
+            nivel[v] = siguienteNivel++;
+            for (int i = 0; i < adyGrado[v]; i++) {
+                int u = ady[v][i];
+                if (contraido[u])
+                    continue;
+                vecinosContraidos[u]++;
+                monticulo.actualiza(u, prioridad(u));
+            }
+        }
+    }
+
+    /* Regresa la prioridad del vértice: su diferencia de aristas más el
+     * número de vecinos ya contraídos, para repartir las contracciones. */
+    private double prioridad(int v) {
+        int activos = 0;
+        for (int i = 0; i < adyGrado[v]; i++)
+            if (!contraido[ady[v][i]])
+                activos++;
+        return atajos(v, false) - activos + vecinosContraidos[v];
+    }
+
+    /* Cuenta los atajos que requiere contraer el vértice, y si se pide los
+     * agrega. */
+    private int atajos(int v, boolean agrega) {
+        int cuenta = 0;
+        for (int i = 0; i < adyGrado[v]; i++) {
+            int u = ady[v][i];
+            if (contraido[u])
+                continue;
+            double duv = adyPeso[v][i];
+            double maximo = -1;
+            for (int j = i + 1; j < adyGrado[v]; j++)
+                if (!contraido[ady[v][j]])
+                    maximo = Math.max(maximo, duv + adyPeso[v][j]);
+            if (maximo < 0)
+                continue;
+            buscaTestigos(u, v, maximo);
+            for (int j = i + 1; j < adyGrado[v]; j++) {
+                int w = ady[v][j];
+                if (contraido[w])
+                    continue;
+                double atajo = duv + adyPeso[v][j];
+                if (testigos.distancia(w) > atajo) {
+                    cuenta++;
+                    if (agrega)
+                        conectaAtajo(u, w, atajo, v);
+                }
+            }
+        }
+        return cuenta;
+    }
+
+    /* Búsqueda local de Dijkstra desde u que evita a v y a los vértices
+     * contraídos, acotada por distancia y por número de vértices fijados. */
+    private void buscaTestigos(int u, int v, double maximo) {
+        testigos.reinicia();
+        testigos.toca(u, 0, -1);
+        int fijados = 0;
+        while (testigos.minimo() <= maximo && fijados++ < LIMITE_TESTIGOS) {
+            int x = testigos.saca();
+            double dx = testigos.distancia(x);
+            for (int i = 0; i < adyGrado[x]; i++) {
+                int y = ady[x][i];
+                if (y != v && !contraido[y])
+                    testigos.toca(y, dx + adyPeso[x][i], x);
+            }
+        }
+    }
+
+    /* Agrega o mejora la arista entre u y w. */
+    private void conectaAtajo(int u, int w, double peso, int medio) {
+        if (!mejoraArista(u, w, peso, medio)) {
+            agregaArista(u, w, peso, medio);
+            agregaArista(w, u, peso, medio);
+        } else {
+            mejoraArista(w, u, peso, medio);
+        }
+    }
+
+    /* Si la arista de u a w existe, la mejora si hace falta y regresa true. */
+    private boolean mejoraArista(int u, int w, double peso, int medio) {
+        for (int i = 0; i < adyGrado[u]; i++)
+            if (ady[u][i] == w) {
+                if (peso < adyPeso[u][i]) {
+                    adyPeso[u][i] = peso;
+                    adyMedio[u][i] = medio;
+                }
+                return true;
+            }
+        return false;
+    }
+
+    /* Agrega la arista de u a w a las adyacencias dinámicas. */
+    private void agregaArista(int u, int w, double peso, int medio) {
+        if (adyGrado[u] == ady[u].length) {
+            int[] nuevaAdy = new int[ady[u].length * 2];
+            double[] nuevoPeso = new double[nuevaAdy.length];
+            int[] nuevoMedio = new int[nuevaAdy.length];
+            for (int i = 0; i < adyGrado[u]; i++) {
+                nuevaAdy[i] = ady[u][i];
+                nuevoPeso[i] = adyPeso[u][i];
+                nuevoMedio[i] = adyMedio[u][i];
+            }
+            ady[u] = nuevaAdy;
+            adyPeso[u] = nuevoPeso;
+            adyMedio[u] = nuevoMedio;
+        }
+        int i = adyGrado[u]++;
+        ady[u][i] = w;
+        adyPeso[u][i] = peso;
+        adyMedio[u][i] = medio;
+    }
+
+    /* Construye la gráfica ascendente: cada vértice guarda solo las aristas
+     * hacia vértices de nivel mayor. */
+    private void construyeAscendente() {
+        int n = grafica.getElementos();
+        inicio = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int sube = 0;
+            for (int i = 0; i < adyGrado[v]; i++)
+                if (nivel[ady[v][i]] > nivel[v])
+                    sube++;
+            inicio[v+1] = inicio[v] + sube;
+        }
+        destinos = new int[inicio[n]];
+        pesos = new double[inicio[n]];
+        medios = new int[inicio[n]];
+        for (int v = 0; v < n; v++) {
+            int a = inicio[v];
+            for (int i = 0; i < adyGrado[v]; i++)
+                if (nivel[ady[v][i]] > nivel[v]) {
+                    destinos[a] = ady[v][i];
+                    pesos[a] = adyPeso[v][i];
+                    medios[a++] = adyMedio[v][i];
+                }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para montículos mínimos <i>d</i>-arios indexados sobre enteros,
+ * pensados para el algoritmo de Dijkstra.</p>
+ *
+ * <p>Los elementos son los enteros de 0 a <i>n</i>-1 (los índices de los
+ * vértices de una {@link GraficaCompacta}) y cada uno tiene una llave
+ * <code>double</code>. El montículo guarda las llaves y la posición de cada
+ * elemento en arreglos de primitivos, así que no necesita un objeto por
+ * elemento ni llamar a {@link ComparableIndexable#setIndice} en cada
+ * intercambio, como {@link MonticuloMinimo}. Los acomodos son ciclos en
+ * lugar de recursiones, y cada nodo tiene <i>d</i> hijos (4 por omisión),
+ * lo que hace al árbol menos profundo y a los hijos contiguos en memoria.</p>
+ */
+public class MonticuloAridad implements MonticuloEnteros {
+
+    /* La aridad por omisión. */
+    private static final int ARIDAD = 4;
+
+    /* La aridad del montículo. */
+    private int aridad;
+    /* Los elementos, en el orden del árbol. */
+    private int[] arbol;
+    /* La posición de cada elemento en el árbol, o -1 si no está. */
+    private int[] posicion;
+    /* La llave de cada elemento. */
+    private double[] llaves;
+    /* El número de elementos en el montículo. */
+    private int elementos;
+
+    /**
+     * Construye un montículo 4-ario vacío para los elementos de 0 a
+     * <i>n</i>-1.
+     * @param n el número de elementos posibles.
+     */
+    public MonticuloAridad(int n) {
+        this(n, ARIDAD);
+    }
+
+    /**
+     * Construye un montículo <i>d</i>-ario vacío para los elementos de 0 a
+     * <i>n</i>-1.
+     * @param n el número de elementos posibles.
+     * @param aridad el número de hijos de cada nodo.
+     * @throws IllegalArgumentException si la aridad es menor que dos.
+     */
+    public MonticuloAridad(int n, int aridad) {
+        if (aridad < 2)
+            throw new IllegalArgumentException("La aridad debe ser al menos 2");
+        this.aridad = aridad;
+        arbol = new int[n];
+        posicion = new int[n];
+        llaves = new double[n];
+        for (int i = 0; i < n; i++)
+            posicion[i] = -1;
+    }
+
+    /**
+     * Agrega un elemento con su llave, o la disminuye si el elemento ya está
+     * en el montículo y la llave nueva es menor.
+     * @param elemento el elemento.
+     * @param llave la llave del elemento.
+     */
+    @Override public void agrega(int elemento, double llave) {
+        int i = posicion[elemento];
+        if (i == -1) {
+            i = elementos++;
+            arbol[i] = elemento;
+        } else if (llave >= llaves[elemento]) {
+            return;
+        }
+        llaves[elemento] = llave;
+        acomodaArriba(i);
+    }
+
+    /**
+     * Cambia la llave de un elemento, sea mayor o menor que la que tenía. Si
+     * el elemento no está en el montículo, lo agrega.
+     * @param elemento el elemento.
+     * @param llave la nueva llave del elemento.
+     */
+    public void actualiza(int elemento, double llave) {
+        int i = posicion[elemento];
+        if (i == -1) {
+            agrega(elemento, llave);
+            return;
+        }
+        llaves[elemento] = llave;
+        acomodaArriba(i);
+        acomodaAbajo(posicion[elemento]);
+    }
+
+    /**
+     * Elimina el elemento de llave mínima del montículo.
+     * @return el elemento de llave mínima.
+     * @throws IllegalStateException si el montículo es vacío.
+     */
+    @Override public int elimina() {
+        if (elementos == 0)
+            throw new IllegalStateException("Monticulo vacio");
+        int minimo = arbol[0];
+        posicion[minimo] = -1;
+        if (--elementos > 0) {
+            arbol[0] = arbol[elementos];
+            acomodaAbajo(0);
+        }
+        return minimo;
+    }
+
+    /**
+     * Regresa el elemento de llave mínima sin eliminarlo.
+     * @return el elemento de llave mínima.
+     * @throws NoSuchElementException si el montículo es vacío.
+     */
+    @Override public int minimo() {
+        if (elementos == 0)
+            throw new NoSuchElementException("Monticulo vacio");
+        return arbol[0];
+    }
+
+    /**
+     * Regresa la llave de un elemento. Si el elemento ya salió del montículo,
+     * regresa la llave con la que salió.
+     * @param elemento el elemento.
+     * @return la llave del elemento.
+     */
+    @Override public double getLlave(int elemento) {
+        return llaves[elemento];
+    }
+
+    /**
+     * Nos dice si un elemento está en el montículo.
+     * @param elemento el elemento.
+     * @return <code>true</code> si el elemento está en el montículo,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean contiene(int elemento) {
+        return posicion[elemento] != -1;
+    }
+
+    /**
+     * Nos dice si el montículo es vacío.
+     * @return <code>true</code> si ya no hay elementos en el montículo,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean esVacia() {
+        return elementos == 0;
+    }
+
+    /**
+     * Regresa el número de elementos en el montículo.
+     * @return el número de elementos en el montículo.
+     */
+    @Override public int getElementos() {
+        return elementos;
+    }
+
+    /**
+     * Limpia el montículo. Solo recorre los elementos que quedaban, así que
+     * es barato después de una búsqueda que vació casi todo el montículo.
+     */
+    @Override public void limpia() {
+        for (int i = 0; i < elementos; i++)
+            posicion[arbol[i]] = -1;
+        elementos = 0;
+    }
+
+    /* Sube el elemento en la posición i mientras sea menor que su padre. */
+    private void acomodaArriba(int i) {
+        int elemento = arbol[i];
+        double llave = llaves[elemento];
+        while (i > 0) {
+            int padre = (i - 1) / aridad;
+            if (llaves[arbol[padre]] <= llave)
+                break;
+            arbol[i] = arbol[padre];
+            posicion[arbol[i]] = i;
+            i = padre;
+        }
+        arbol[i] = elemento;
+        posicion[elemento] = i;
+    }
+
+    /* Baja el elemento en la posición i mientras sea mayor que algún hijo. */
+    private void acomodaAbajo(int i) {
+        int elemento = arbol[i];
+        double llave = llaves[elemento];
+        while (true) {
+            int primero = aridad * i + 1;
+            if (primero >= elementos)
+                break;
+            int ultimo = Math.min(primero + aridad, elementos);
+            int menor = primero;
+            double llaveMenor = llaves[arbol[primero]];
+            for (int hijo = primero + 1; hijo < ultimo; hijo++)
+                if (llaves[arbol[hijo]] < llaveMenor) {
+                    menor = hijo;
+                    llaveMenor = llaves[arbol[hijo]];
+                }
+            if (llave <= llaveMenor)
+                break;
+            arbol[i] = arbol[menor];
+            posicion[arbol[i]] = i;
+            i = menor;
+        }
+        arbol[i] = elemento;
+        posicion[elemento] = i;
+    }
+}
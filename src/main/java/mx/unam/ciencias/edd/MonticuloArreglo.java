@@ -3,7 +3,10 @@ package mx.unam.ciencias.edd;
 import java.util.NoSuchElementException;
 
 /**
- * Clase para montículos de Dijkstra con arreglos.
+ * Clase para montículos de Dijkstra con arreglos. Los elementos ocupan las
+ * primeras posiciones del arreglo; al eliminar el mínimo, el último elemento
+ * pasa a su lugar, así que cada eliminación solo recorre los elementos que
+ * quedan.
  */
 public class MonticuloArreglo<T extends ComparableIndexable<T>>
     implements MonticuloDijkstra<T> {
@@ -56,16 +59,16 @@ public class MonticuloArreglo<T extends ComparableIndexable<T>>
     @Override public T elimina() {
         if (elementos == 0)
             throw new IllegalStateException("Monticulo vacio");
-        T minimo = null;
-        for (T elemento : arreglo)
-            if (minimo == null && elemento != null)
-                minimo = elemento;
-            else if (elemento != null && elemento.compareTo(minimo) <= 0)
-                minimo = elemento;
-        int indice = minimo.getIndice();
+        int indice = 0;
+        for (int i = 1; i < elementos; i++)
+            if (arreglo[i].compareTo(arreglo[indice]) <= 0)
+                indice = i;
+        T minimo = arreglo[indice];
         minimo.setIndice(-1);
-        arreglo[indice] = null;
         elementos--;
+        if (indice != elementos)
+            agregaEnIndice(arreglo[elementos], indice);
+        arreglo[elementos] = null;
         return minimo;
     }
 
@@ -77,7 +80,7 @@ public class MonticuloArreglo<T extends ComparableIndexable<T>>
      *         que el número de elementos.
      */
     @Override public T get(int i) {
-        if (i < 0 || i >= arreglo.length)
+        if (i < 0 || i >= elementos)
             throw new NoSuchElementException("Indice inexistente en el monticulo");
         return arreglo[i];
     }
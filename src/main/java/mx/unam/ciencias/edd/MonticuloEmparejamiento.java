@@ -0,0 +1,203 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para montículos de emparejamiento (<em>pairing heaps</em>)
+ * indexados sobre enteros, pensados para el algoritmo de Dijkstra.</p>
+ *
+ * <p>El montículo es un árbol en el que cada nodo es menor o igual que sus
+ * hijos; los hijos de un nodo forman una lista ligada por hermanos. Agregar
+ * un elemento o disminuir su llave solo corta su subárbol y lo liga con la
+ * raíz, en tiempo constante; el trabajo se difiere a {@link #elimina}, que
+ * liga por pares a los hijos de la raíz, de izquierda a derecha, y luego
+ * liga los pares de derecha a izquierda. Como en {@link MonticuloAridad},
+ * los nodos son los enteros de 0 a <i>n</i>-1 y el árbol se guarda en
+ * arreglos de primitivos.</p>
+ */
+public class MonticuloEmparejamiento implements MonticuloEnteros {
+
+    /* El primer hijo de cada nodo, o -1. */
+    private int[] hijo;
+    /* El siguiente hermano de cada nodo, o -1. */
+    private int[] hermano;
+    /* El hermano anterior de cada nodo o, si es el primer hijo, su padre; -1
+     * para la raíz. */
+    private int[] previo;
+    /* La llave de cada elemento. */
+    private double[] llaves;
+    /* La época en que se agregó cada elemento; está en el montículo si es
+     * la época actual. */
+    private int[] epoca;
+    /* La época actual. */
+    private int actual;
+    /* Los hijos de la raíz al eliminarla. */
+    private int[] hijos;
+    /* La raíz, o -1 si el montículo es vacío. */
+    private int raiz;
+    /* El número de elementos en el montículo. */
+    private int elementos;
+
+    /**
+     * Construye un montículo de emparejamiento vacío para los elementos de 0
+     * a <i>n</i>-1.
+     * @param n el número de elementos posibles.
+     */
+    public MonticuloEmparejamiento(int n) {
+        hijo = new int[n];
+        hermano = new int[n];
+        previo = new int[n];
+        llaves = new double[n];
+        epoca = new int[n];
+        hijos = new int[n];
+        actual = 1;
+        raiz = -1;
+    }
+
+    /**
+     * Agrega un elemento con su llave, o la disminuye si el elemento ya está
+     * en el montículo y la llave nueva es menor. Las dos operaciones son de
+     * tiempo constante.
+     * @param elemento el elemento.
+     * @param llave la llave del elemento.
+     */
+    @Override public void agrega(int elemento, double llave) {
+        if (epoca[elemento] != actual) {
+            epoca[elemento] = actual;
+            llaves[elemento] = llave;
+            hijo[elemento] = hermano[elemento] = previo[elemento] = -1;
+            raiz = liga(raiz, elemento);
+            elementos++;
+            return;
+        }
+        if (llave >= llaves[elemento])
+            return;
+        llaves[elemento] = llave;
+        if (elemento == raiz)
+            return;
+        corta(elemento);
+        raiz = liga(raiz, elemento);
+    }
+
+    /**
+     * Elimina el elemento de llave mínima del montículo.
+     * @return el elemento de llave mínima.
+     * @throws IllegalStateException si el montículo es vacío.
+     */
+    @Override public int elimina() {
+        if (elementos == 0)
+            throw new IllegalStateException("Monticulo vacio");
+        int minimo = raiz;
+        epoca[minimo] = 0;
+        elementos--;
+        int n = 0;
+        for (int h = hijo[minimo]; h != -1; ) {
+            int siguiente = hermano[h];
+            hermano[h] = previo[h] = -1;
+            hijos[n++] = h;
+            h = siguiente;
+        }
+        int pares = 0;
+        for (int i = 0; i + 1 < n; i += 2)
+            hijos[pares++] = liga(hijos[i], hijos[i+1]);
+        if (n % 2 == 1)
+            hijos[pares++] = hijos[n-1];
+        raiz = pares == 0 ? -1 : hijos[pares-1];
+        for (int i = pares - 2; i >= 0; i--)
+            raiz = liga(hijos[i], raiz);
+        return minimo;
+    }
+
+    /**
+     * Regresa el elemento de llave mínima sin eliminarlo.
+     * @return el elemento de llave mínima.
+     * @throws NoSuchElementException si el montículo es vacío.
+     */
+    @Override public int minimo() {
+        if (elementos == 0)
+            throw new NoSuchElementException("Monticulo vacio");
+        return raiz;
+    }
+
+    /**
+     * Regresa la llave de un elemento. Si el elemento ya salió del montículo,
+     * regresa la llave con la que salió.
+     * @param elemento el elemento.
+     * @return la llave del elemento.
+     */
+    @Override public double getLlave(int elemento) {
+        return llaves[elemento];
+    }
+
+    /**
+     * Nos dice si un elemento está en el montículo.
+     * @param elemento el elemento.
+     * @return <code>true</code> si el elemento está en el montículo,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean contiene(int elemento) {
+        return epoca[elemento] == actual;
+    }
+
+    /**
+     * Nos dice si el montículo es vacío.
+     * @return <code>true</code> si ya no hay elementos en el montículo,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean esVacia() {
+        return elementos == 0;
+    }
+
+    /**
+     * Regresa el número de elementos en el montículo.
+     * @return el número de elementos en el montículo.
+     */
+    @Override public int getElementos() {
+        return elementos;
+    }
+
+    /**
+     * Limpia el montículo en tiempo constante, cambiando de época.
+     */
+    @Override public void limpia() {
+        if (++actual == 0) {
+            for (int i = 0; i < epoca.length; i++)
+                epoca[i] = 0;
+            actual = 1;
+        }
+        raiz = -1;
+        elementos = 0;
+    }
+
+    /* Corta el subárbol del nodo de la lista de hijos de su padre. */
+    private void corta(int nodo) {
+        int p = previo[nodo], s = hermano[nodo];
+        if (hijo[p] == nodo)
+            hijo[p] = s;
+        else
+            hermano[p] = s;
+        if (s != -1)
+            previo[s] = p;
+        hermano[nodo] = previo[nodo] = -1;
+    }
+
+    /* Liga dos árboles sin hermanos y regresa la raíz del resultado. */
+    private int liga(int a, int b) {
+        if (a == -1)
+            return b;
+        if (b == -1)
+            return a;
+        if (llaves[b] < llaves[a]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int h = hijo[a];
+        hermano[b] = h;
+        if (h != -1)
+            previo[h] = b;
+        previo[b] = a;
+        hijo[a] = b;
+        return a;
+    }
+}
@@ -0,0 +1,67 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Interfaz para montículos mínimos indexados sobre enteros, usables por el
+ * algoritmo de Dijkstra. Los elementos son los enteros de 0 a <i>n</i>-1 y
+ * cada uno tiene una llave <code>double</code>.
+ */
+public interface MonticuloEnteros {
+
+    /**
+     * Agrega un elemento con su llave, o la disminuye si el elemento ya está
+     * en el montículo y la llave nueva es menor.
+     * @param elemento el elemento.
+     * @param llave la llave del elemento.
+     */
+    public void agrega(int elemento, double llave);
+
+    /**
+     * Elimina el elemento de llave mínima del montículo.
+     * @return el elemento de llave mínima.
+     * @throws IllegalStateException si el montículo es vacío.
+     */
+    public int elimina();
+
+    /**
+     * Regresa el elemento de llave mínima sin eliminarlo.
+     * @return el elemento de llave mínima.
+     * @throws NoSuchElementException si el montículo es vacío.
+     */
+    public int minimo();
+
+    /**
+     * Regresa la llave de un elemento. Si el elemento ya salió del montículo,
+     * regresa la llave con la que salió.
+     * @param elemento el elemento.
+     * @return la llave del elemento.
+     */
+    public double getLlave(int elemento);
+
+    /**
+     * Nos dice si un elemento está en el montículo.
+     * @param elemento el elemento.
+     * @return <code>true</code> si el elemento está en el montículo,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(int elemento);
+
+    /**
+     * Nos dice si el montículo es vacío.
+     * @return <code>true</code> si ya no hay elementos en el montículo,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean esVacia();
+
+    /**
+     * Regresa el número de elementos en el montículo.
+     * @return el número de elementos en el montículo.
+     */
+    public int getElementos();
+
+    /**
+     * Limpia el montículo, dejándolo vacío.
+     */
+    public void limpia();
+}
@@ -0,0 +1,341 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para mantener una trayectoria de peso mínimo entre dos elementos de
+ * una gráfica que cambia, con el algoritmo <em>Lifelong Planning A*</em>.</p>
+ *
+ * <p>Cada vértice guarda su distancia <i>g</i> y una distancia anticipada
+ * <i>rhs</i>, calculada a partir de las distancias de sus vecinos. Los
+ * vértices en los que ambas difieren están en un montículo, ordenados por la
+ * llave lexicográfica (min(<i>g</i>, <i>rhs</i>) + <i>h</i>,
+ * min(<i>g</i>, <i>rhs</i>)), donde <i>h</i> es una {@link Heuristica}
+ * opcional. La primera búsqueda es un A* normal; después, cada cambio a la
+ * gráfica solo recalcula los extremos de la arista afectada, y la siguiente
+ * consulta repara únicamente los vértices cuya distancia cambió y que pueden
+ * afectar a la trayectoria.</p>
+ *
+ * <p>Los cambios deben hacerse con {@link #conecta}, {@link #desconecta} y
+ * {@link #setPeso} de esta clase, que los pasan a la gráfica; los cambios
+ * hechos directamente sobre la gráfica no se ven reflejados.</p>
+ */
+public class TrayectoriaIncremental<T> {
+
+    /* Clase interna privada para los vértices de la búsqueda. */
+    private class Nodo implements ComparableIndexable<Nodo> {
+
+        /* El elemento del nodo. */
+        private T elemento;
+        /* La distancia y la distancia anticipada. */
+        private double g, rhs;
+        /* La estimación de la heurística al destino. */
+        private double h;
+        /* La llave del nodo en el montículo. */
+        private double llave1, llave2;
+        /* El índice del nodo en el montículo. */
+        private int indice;
+        /* Las aristas del nodo. */
+        private Lista<Arista> aristas;
+
+        /* Crea un nodo sin distancia para el elemento. */
+        public Nodo(T elemento) {
+            this.elemento = elemento;
+            g = rhs = INFINITO;
+            h = heuristica == null ? 0 : heuristica.estima(elemento, destino);
+            indice = -1;
+            aristas = new Lista<>();
+        }
+
+        /* Regresa el índice del nodo. */
+        @Override public int getIndice() {
+            return indice;
+        }
+
+        /* Define el índice del nodo. */
+        @Override public void setIndice(int indice) {
+            this.indice = indice;
+        }
+
+        /* Compara las llaves lexicográficamente. */
+        @Override public int compareTo(Nodo nodo) {
+            if (llave1 != nodo.llave1)
+                return llave1 < nodo.llave1 ? -1 : 1;
+            if (llave2 != nodo.llave2)
+                return llave2 < nodo.llave2 ? -1 : 1;
+            return 0;
+        }
+    }
+
+    /* Clase interna privada para aristas. */
+    private class Arista {
+
+        /* El nodo al otro extremo de la arista. */
+        private Nodo vecino;
+        /* El peso de la arista. */
+        private double peso;
+
+        /* Crea una arista hacia el vecino. */
+        public Arista(Nodo vecino, double peso) {
+            this.vecino = vecino;
+            this.peso = peso;
+        }
+    }
+
+    /* Distancia de los nodos inalcanzables. */
+    private static final double INFINITO = Double.POSITIVE_INFINITY;
+
+    /* La gráfica. */
+    private Grafica<T> grafica;
+    /* Los elementos de origen y destino. */
+    private T origen, destino;
+    /* La heurística, o null si no hay. */
+    private Heuristica<T> heuristica;
+    /* Los nodos de cada elemento. */
+    private Diccionario<T, Nodo> nodos;
+    /* Los nodos inconsistentes. */
+    private MonticuloMinimo<Nodo> monticulo;
+    /* Los nodos de origen y destino. */
+    private Nodo nodoOrigen, nodoDestino;
+    /* Los nodos expandidos en la última reparación. */
+    private int expansiones;
+
+    /**
+     * Construye una trayectoria incremental entre dos elementos de la
+     * gráfica, sin heurística.
+     * @param grafica la gráfica.
+     * @param origen el elemento de origen.
+     * @param destino el elemento de destino.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public TrayectoriaIncremental(Grafica<T> grafica, T origen, T destino) {
+        this(grafica, origen, destino, null);
+    }
+
+    /**
+     * Construye una trayectoria incremental entre dos elementos de la
+     * gráfica, guiada por una heurística.
+     * @param grafica la gráfica.
+     * @param origen el elemento de origen.
+     * @param destino el elemento de destino.
+     * @param heuristica la heurística; debe ser consistente.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public TrayectoriaIncremental(Grafica<T> grafica, T origen, T destino,
+                                  Heuristica<T> heuristica) {
+        this.grafica = grafica;
+        this.origen = origen;
+        this.destino = destino;
+        this.heuristica = heuristica;
+        GraficaCompacta<T> compacta = grafica.compacta();
+        int n = compacta.getElementos();
+        nodos = new Diccionario<>(n);
+        Lista<Nodo> porIndice = new Lista<>();
+        for (int v = 0; v < n; v++) {
+            Nodo nodo = new Nodo(compacta.get(v));
+            nodos.agrega(nodo.elemento, nodo);
+            porIndice.agregaFinal(nodo);
+        }
+        int v = 0;
+        for (Nodo nodo : porIndice) {
+            for (int a = compacta.inicio(v); a < compacta.fin(v); a++)
+                nodo.aristas.agrega(new Arista(nodo(compacta.get(compacta.destino(a))),
+                                               compacta.peso(a)));
+            v++;
+        }
+        if (!nodos.contiene(origen) || !nodos.contiene(destino))
+            throw new NoSuchElementException("Los elementos no estan en la grafica");
+        nodoOrigen = nodos.get(origen);
+        nodoDestino = nodos.get(destino);
+        monticulo = new MonticuloMinimo<>();
+        nodoOrigen.rhs = 0;
+        encola(nodoOrigen);
+    }
+
+    /**
+     * Regresa la gráfica.
+     * @return la gráfica.
+     */
+    public Grafica<T> getGrafica() {
+        return grafica;
+    }
+
+    /**
+     * Regresa el peso de la trayectoria mínima del origen al destino,
+     * reparando lo que haga falta después de los últimos cambios.
+     * @return el peso de la trayectoria mínima, o {@link Double#MAX_VALUE}
+     *         si el destino es inalcanzable.
+     */
+    public double distancia() {
+        repara();
+        return nodoDestino.g == INFINITO ? Double.MAX_VALUE : nodoDestino.g;
+    }
+
+    /**
+     * Regresa una trayectoria de peso mínimo del origen al destino,
+     * reparando lo que haga falta después de los últimos cambios.
+     * @return los elementos de la trayectoria, del origen al destino; una
+     *         lista vacía si el destino es inalcanzable.
+     */
+    public Lista<T> trayectoria() {
+        repara();
+        Lista<T> trayectoria = new Lista<>();
+        if (nodoDestino.g == INFINITO)
+            return trayectoria;
+        Nodo nodo = nodoDestino;
+        trayectoria.agregaInicio(nodo.elemento);
+        while (nodo != nodoOrigen) {
+            Nodo anterior = null;
+            double minima = INFINITO;
+            for (Arista arista : nodo.aristas)
+                if (arista.vecino.g + arista.peso < minima) {
+                    anterior = arista.vecino;
+                    minima = arista.vecino.g + arista.peso;
+                }
+            nodo = anterior;
+            trayectoria.agregaInicio(nodo.elemento);
+        }
+        return trayectoria;
+    }
+
+    /**
+     * Regresa el número de vértices expandidos por la última reparación.
+     * @return el número de vértices expandidos por la última reparación.
+     */
+    public int getExpansiones() {
+        return expansiones;
+    }
+
+    /**
+     * Conecta dos elementos de la gráfica, como {@link Grafica#conecta(Object,
+     * Object, double)}, y anota el cambio para la siguiente consulta.
+     * @param a el primer elemento a conectar.
+     * @param b el segundo elemento a conectar.
+     * @param peso el peso de la arista.
+     * @throws NoSuchElementException si a o b no son elementos de la gráfica.
+     * @throws IllegalArgumentException si a o b ya están conectados, si a es
+     *         igual a b, o si el peso es no positivo.
+     */
+    public void conecta(T a, T b, double peso) {
+        grafica.conecta(a, b, peso);
+        Nodo na = nodo(a), nb = nodo(b);
+        na.aristas.agrega(new Arista(nb, peso));
+        nb.aristas.agrega(new Arista(na, peso));
+        actualiza(na);
+        actualiza(nb);
+    }
+
+    /**
+     * Desconecta dos elementos de la gráfica, como {@link
+     * Grafica#desconecta}, y anota el cambio para la siguiente consulta.
+     * @param a el primer elemento a desconectar.
+     * @param b el segundo elemento a desconectar.
+     * @throws NoSuchElementException si a o b no son elementos de la gráfica.
+     * @throws IllegalArgumentException si a o b no están conectados.
+     */
+    public void desconecta(T a, T b) {
+        grafica.desconecta(a, b);
+        Nodo na = nodo(a), nb = nodo(b);
+        na.aristas.elimina(arista(na, nb));
+        nb.aristas.elimina(arista(nb, na));
+        actualiza(na);
+        actualiza(nb);
+    }
+
+    /**
+     * Cambia el peso de la arista entre dos elementos, como {@link
+     * Grafica#setPeso}, y anota el cambio para la siguiente consulta.
+     * @param a el primer elemento.
+     * @param b el segundo elemento.
+     * @param peso el nuevo peso de la arista.
+     * @throws NoSuchElementException si a o b no son elementos de la gráfica.
+     * @throws IllegalArgumentException si a o b no están conectados, o si peso
+     *         es menor o igual que cero.
+     */
+    public void setPeso(T a, T b, double peso) {
+        grafica.setPeso(a, b, peso);
+        Nodo na = nodo(a), nb = nodo(b);
+        arista(na, nb).peso = peso;
+        arista(nb, na).peso = peso;
+        actualiza(na);
+        actualiza(nb);
+    }
+
+    /* Expande nodos inconsistentes hasta que el destino es consistente y
+     * ningún nodo en el montículo puede mejorarlo. */
+    private void repara() {
+        expansiones = 0;
+        while (!monticulo.esVacia() &&
+               (antesQueDestino(monticulo.get(0)) ||
+                nodoDestino.rhs != nodoDestino.g)) {
+            Nodo nodo = monticulo.elimina();
+            expansiones++;
+            if (nodo.g > nodo.rhs) {
+                nodo.g = nodo.rhs;
+                for (Arista arista : nodo.aristas)
+                    actualiza(arista.vecino);
+            } else {
+                nodo.g = INFINITO;
+                actualiza(nodo);
+                for (Arista arista : nodo.aristas)
+                    actualiza(arista.vecino);
+            }
+        }
+    }
+
+    /* Nos dice si la llave del nodo es menor que la llave actual del
+     * destino. */
+    private boolean antesQueDestino(Nodo nodo) {
+        double llave2 = Math.min(nodoDestino.g, nodoDestino.rhs);
+        double llave1 = llave2 + nodoDestino.h;
+        if (nodo.llave1 != llave1)
+            return nodo.llave1 < llave1;
+        return nodo.llave2 < llave2;
+    }
+
+    /* Recalcula la distancia anticipada del nodo y su lugar en el montículo. */
+    private void actualiza(Nodo nodo) {
+        if (nodo != nodoOrigen) {
+            nodo.rhs = INFINITO;
+            for (Arista arista : nodo.aristas)
+                if (arista.vecino.g + arista.peso < nodo.rhs)
+                    nodo.rhs = arista.vecino.g + arista.peso;
+        }
+        if (monticulo.contiene(nodo))
+            monticulo.elimina(nodo);
+        if (nodo.g != nodo.rhs)
+            encola(nodo);
+    }
+
+    /* Agrega el nodo al montículo con su llave actual. */
+    private void encola(Nodo nodo) {
+        calculaLlave(nodo);
+        monticulo.agrega(nodo);
+    }
+
+    /* Calcula la llave del nodo. */
+    private void calculaLlave(Nodo nodo) {
+        nodo.llave2 = Math.min(nodo.g, nodo.rhs);
+        nodo.llave1 = nodo.llave2 + nodo.h;
+    }
+
+    /* Regresa el nodo del elemento, creándolo si el elemento se agregó a la
+     * gráfica después de construir la trayectoria. */
+    private Nodo nodo(T elemento) {
+        if (nodos.contiene(elemento))
+            return nodos.get(elemento);
+        Nodo nodo = new Nodo(elemento);
+        nodos.agrega(elemento, nodo);
+        return nodo;
+    }
+
+    /* Regresa la arista del nodo hacia el vecino. */
+    private Arista arista(Nodo nodo, Nodo vecino) {
+        for (Arista arista : nodo.aristas)
+            if (arista.vecino == vecino)
+                return arista;
+        throw new IllegalArgumentException("Los elementos no estan conectados");
+    }
+}
@@ -0,0 +1,182 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Clase que recorre un laberinto a lo ancho sin pesos, 64 casillas a la vez.
+ * Cada renglon se guarda como un arreglo de palabras de 64 bits, con un bit
+ * por casilla: uno para las casillas abiertas hacia el este y otro para las
+ * abiertas hacia el sur (abiertas de los dos lados de la pared). La frontera
+ * del recorrido tambien es un mapa de bits, y cada capa se calcula con
+ * corrimientos y mascaras sobre los renglones que la frontera toca, hasta que
+ * ya no hay casillas nuevas. Sirve para saber que casillas se alcanzan y a
+ * cuantos pasos, sin crear un vertice por casilla como
+ * {@link mx.unam.ciencias.edd.Grafica#trayectoriaMinima}.
+ */
+public class AlcanceBits {
+
+    /* El ancho y la altura del laberinto */
+    private int ancho, alto;
+    /* Palabras por renglon */
+    private int palabras;
+    /* Casillas abiertas al este y al sur, por renglones */
+    private long[] este, sur;
+    /* Casillas alcanzadas */
+    private long[] visitadas;
+    /* La frontera actual y la siguiente */
+    private long[] frontera, siguiente;
+    /* Numero de casillas alcanzadas en el ultimo recorrido */
+    private int alcanzadas;
+    /* Numero de capas del ultimo recorrido */
+    private int capas;
+
+    /* Constructor de la clase */
+    public AlcanceBits(Cuadricula cuadricula){
+        ancho = cuadricula.getAncho();
+        alto = cuadricula.getAlto();
+        palabras = (ancho + 63) >>> 6;
+        este = new long[alto * palabras];
+        sur = new long[alto * palabras];
+        for (int y = 0; y < alto; y++)
+            for (int x = 0; x < ancho; x++){
+                int i = y * palabras + (x >>> 6);
+                if (cuadricula.abiertaEste(x, y))
+                    este[i] |= 1L << x;
+                if (cuadricula.abiertaSur(x, y))
+                    sur[i] |= 1L << x;
+            }
+        visitadas = new long[alto * palabras];
+        frontera = new long[alto * palabras];
+        siguiente = new long[alto * palabras];
+    }
+
+    /**
+     * Recorre el laberinto desde una casilla.
+     * @param x la columna de la casilla de origen.
+     * @param y el renglon de la casilla de origen.
+     * @return el numero de capas del recorrido; la casilla mas lejana esta a
+     *         uno menos de pasos.
+     */
+    public int explora(int x, int y){
+        return explora(x, y, null);
+    }
+
+    /**
+     * Recorre el laberinto desde una casilla, anotando en que capa se alcanza
+     * cada casilla.
+     * @param x la columna de la casilla de origen.
+     * @param y el renglon de la casilla de origen.
+     * @param capas donde se anota la capa de cada casilla, por renglones
+     *        (<code>y * ancho + x</code>), o -1 si no se alcanza; puede ser
+     *        <code>null</code>.
+     * @return el numero de capas del recorrido; la casilla mas lejana esta a
+     *         uno menos de pasos.
+     * @throws IllegalArgumentException si la casilla no esta en el laberinto.
+     */
+    public int explora(int x, int y, int[] capas){
+        if (x < 0 || x >= ancho || y < 0 || y >= alto)
+            throw new IllegalArgumentException("La casilla no esta en el laberinto");
+        for (int i = 0; i < visitadas.length; i++)
+            visitadas[i] = frontera[i] = 0;
+        if (capas != null)
+            for (int i = 0; i < ancho * alto; i++)
+                capas[i] = -1;
+        frontera[y * palabras + (x >>> 6)] = 1L << x;
+        visitadas[y * palabras + (x >>> 6)] = 1L << x;
+        if (capas != null)
+            capas[y * ancho + x] = 0;
+        alcanzadas = 1;
+        this.capas = 1;
+        int primero = y, ultimo = y;
+        while (true){
+            int desde = Math.max(primero - 1, 0), hasta = Math.min(ultimo + 1, alto - 1);
+            int nuevoPrimero = -1, nuevoUltimo = -1;
+            for (int r = desde; r <= hasta; r++)
+                if (expande(r)){
+                    if (nuevoPrimero == -1)
+                        nuevoPrimero = r;
+                    nuevoUltimo = r;
+                }
+            if (nuevoPrimero == -1)
+                break;
+            for (int r = desde; r <= hasta; r++)
+                for (int k = 0; k < palabras; k++){
+                    int i = r * palabras + k;
+                    frontera[i] = siguiente[i];
+                    visitadas[i] |= siguiente[i];
+                    alcanzadas += Long.bitCount(siguiente[i]);
+                    if (capas != null)
+                        anotaCapa(capas, r, k, siguiente[i]);
+                }
+            this.capas++;
+            primero = nuevoPrimero;
+            ultimo = nuevoUltimo;
+        }
+        return this.capas;
+    }
+
+    /**
+     * Nos dice si la casilla se alcanzo en el ultimo recorrido.
+     * @param x la columna de la casilla.
+     * @param y el renglon de la casilla.
+     * @return <code>true</code> si la casilla se alcanzo, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean alcanzable(int x, int y){
+        if (x < 0 || x >= ancho || y < 0 || y >= alto)
+            return false;
+        return (visitadas[y * palabras + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Regresa el numero de casillas alcanzadas en el ultimo recorrido.
+     * @return el numero de casillas alcanzadas en el ultimo recorrido.
+     */
+    public int getAlcanzadas(){
+        return alcanzadas;
+    }
+
+    /**
+     * Regresa el numero de capas del ultimo recorrido.
+     * @return el numero de capas del ultimo recorrido.
+     */
+    public int getCapas(){
+        return capas;
+    }
+
+    /* Calcula la siguiente frontera del renglon r a partir de la frontera del
+     * renglon y de sus vecinos; regresa si tiene alguna casilla nueva */
+    private boolean expande(int r){
+        int base = r * palabras;
+        boolean hay = false;
+        for (int k = 0; k < palabras; k++){
+            int i = base + k;
+            long f = frontera[i];
+            /* Del oeste hacia el este, con el bit que pasa de la palabra anterior */
+            long nuevas = (f & este[i]) << 1;
+            if (k > 0)
+                nuevas |= (frontera[i-1] & este[i-1]) >>> 63;
+            /* Del este hacia el oeste, con el bit que llega de la palabra siguiente */
+            long oeste = f >>> 1;
+            if (k + 1 < palabras)
+                oeste |= frontera[i+1] << 63;
+            nuevas |= oeste & este[i];
+            /* Del renglon de arriba y del de abajo */
+            if (r > 0)
+                nuevas |= frontera[i - palabras] & sur[i - palabras];
+            if (r + 1 < alto)
+                nuevas |= frontera[i + palabras] & sur[i];
+            nuevas &= ~visitadas[i];
+            siguiente[i] = nuevas;
+            hay |= nuevas != 0;
+        }
+        return hay;
+    }
+
+    /* Anota la capa actual de las casillas prendidas en la palabra */
+    private void anotaCapa(int[] capas, int r, int k, long bits){
+        while (bits != 0){
+            int x = (k << 6) + Long.numberOfTrailingZeros(bits);
+            capas[r * ancho + x] = this.capas;
+            bits &= bits - 1;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Clase para leer un archivo con muchos laberintos. El archivo empieza con
+ * <code>MAZA</code> y le sigue un tramo por cada vez que se agregaron
+ * laberintos: los laberintos nuevos uno tras otro (cada uno como archivo
+ * normal o como contenedor comprimido), un indice con una entrada de {@link
+ * #ENTRADA} bytes por cada laberinto nuevo y un pie con el numero total de
+ * laberintos, donde empieza el indice del tramo, donde termina el pie del
+ * tramo anterior (0 si es el primero) y <code>MAZI</code>. Cada entrada
+ * guarda el identificador, la semilla, donde empieza el laberinto, su
+ * longitud, su ancho y su altura. Vale el ultimo pie completo del archivo:
+ * si una escritura se interrumpe, los bytes que quedan despues de el se
+ * ignoran. Al abrir el archivo se recorre la cadena de pies una sola vez;
+ * los identificadores son consecutivos desde 0, asi que la entrada de un
+ * laberinto se encuentra con una busqueda binaria entre los tramos. Las
+ * posiciones son de 64 bits y cada laberinto se lee por separado, asi que
+ * el archivo puede medir mas de 2 GB.
+ */
+public class ArchivoLaberintos implements AutoCloseable {
+
+    /** Bytes de cada entrada del indice. */
+    public static final int ENTRADA = 32;
+    /** Bytes del pie de cada tramo. */
+    public static final int PIE = 24;
+
+    /* Bytes que se leen a la vez al buscar el ultimo pie */
+    private static final int BLOQUE = 1 << 16;
+
+    /* El canal del archivo */
+    private FileChannel canal;
+    /* El numero de laberintos */
+    private int laberintos;
+    /* El numero de tramos con laberintos */
+    private int tramos;
+    /* El primer identificador de cada tramo, de menor a mayor */
+    private int[] primeros;
+    /* Donde empieza el indice de cada tramo */
+    private long[] indices;
+
+    /**
+     * Abre un archivo de laberintos.
+     * @param archivo la ruta del archivo.
+     * @throws IOException si no se puede abrir o leer el archivo.
+     * @throws IllegalArgumentException si el archivo no es valido.
+     */
+    public ArchivoLaberintos(String archivo) throws IOException {
+        canal = new RandomAccessFile(archivo, "r").getChannel();
+        try {
+            abre();
+        } catch (IOException | RuntimeException e){
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Regresa el numero de laberintos del archivo.
+     * @return el numero de laberintos del archivo.
+     */
+    public int getLaberintos(){
+        return laberintos;
+    }
+
+    /**
+     * Regresa la semilla con la que se genero un laberinto.
+     * @param id el identificador del laberinto.
+     * @return la semilla del laberinto.
+     * @throws IOException si ocurre un error al leer.
+     * @throws IndexOutOfBoundsException si no hay laberinto con ese
+     *         identificador.
+     */
+    public long getSemilla(int id) throws IOException {
+        return entrada(id).getLong(8);
+    }
+
+    /**
+     * Regresa el ancho de un laberinto.
+     * @param id el identificador del laberinto.
+     * @return el ancho del laberinto.
+     * @throws IOException si ocurre un error al leer.
+     * @throws IndexOutOfBoundsException si no hay laberinto con ese
+     *         identificador.
+     */
+    public int getAncho(int id) throws IOException {
+        return entrada(id).get(28) & 0xFF;
+    }
+
+    /**
+     * Regresa la altura de un laberinto.
+     * @param id el identificador del laberinto.
+     * @return la altura del laberinto.
+     * @throws IOException si ocurre un error al leer.
+     * @throws IndexOutOfBoundsException si no hay laberinto con ese
+     *         identificador.
+     */
+    public int getAlto(int id) throws IOException {
+        return entrada(id).get(29) & 0xFF;
+    }
+
+    /**
+     * Regresa los bytes de un laberinto mapeados a memoria, tal y como se
+     * guardaron: como archivo normal o como contenedor comprimido. Solo se
+     * mapea el laberinto, no todo el archivo.
+     * @param id el identificador del laberinto.
+     * @return una vista de solo lectura de los bytes del laberinto.
+     * @throws IOException si ocurre un error al mapear.
+     * @throws IndexOutOfBoundsException si no hay laberinto con ese
+     *         identificador.
+     */
+    public ByteBuffer laberinto(int id) throws IOException {
+        ByteBuffer e = entrada(id);
+        return canal.map(FileChannel.MapMode.READ_ONLY, e.getLong(16), e.getInt(24));
+    }
+
+    /**
+     * Regresa una copia de los bytes de un laberinto, tal y como se
+     * guardaron.
+     * @param id el identificador del laberinto.
+     * @return los bytes del laberinto.
+     * @throws IOException si ocurre un error al leer.
+     * @throws IndexOutOfBoundsException si no hay laberinto con ese
+     *         identificador.
+     */
+    public byte[] bytes(int id) throws IOException {
+        ByteBuffer e = entrada(id);
+        byte[] copia = new byte[e.getInt(24)];
+        lee(canal, ByteBuffer.wrap(copia), e.getLong(16));
+        return copia;
+    }
+
+    /**
+     * Cierra el archivo; las vistas que ya regreso {@link #laberinto} siguen
+     * siendo validas.
+     * @throws IOException si ocurre un error al cerrar.
+     */
+    @Override public void close() throws IOException {
+        canal.close();
+    }
+
+    /* Busca el ultimo pie completo y recorre la cadena de pies para saber
+     * donde empieza el indice de cada tramo */
+    private void abre() throws IOException {
+        if (canal.size() < 4 + PIE || !magia(lee(canal, 0, 4), 0, "MAZA"))
+            throw new IllegalArgumentException("El archivo no es un archivo de laberintos");
+        long n = fin(canal);
+        if (n < 0)
+            throw new IllegalArgumentException("El indice del archivo de laberintos esta corrupto");
+        laberintos = lee(canal, n - PIE, PIE).getInt(0);
+        primeros = new int[16];
+        indices = new long[16];
+        while (n > 0){
+            ByteBuffer pie = lee(canal, n - PIE, PIE);
+            int previos = previos(canal, n);
+            if (previos < 0)
+                throw new IllegalArgumentException("El indice del archivo de laberintos esta corrupto");
+            if (previos < pie.getInt(0))
+                agregaTramo(previos, pie.getLong(4));
+            n = pie.getLong(12);
+        }
+        for (int i = 0, j = tramos - 1; i < j; i++, j--){
+            int primero = primeros[i];
+            primeros[i] = primeros[j];
+            primeros[j] = primero;
+            long indice = indices[i];
+            indices[i] = indices[j];
+            indices[j] = indice;
+        }
+    }
+
+    /* Agrega un tramo a los arreglos, creciendolos si hace falta */
+    private void agregaTramo(int primero, long indice){
+        if (tramos == primeros.length){
+            primeros = Arrays.copyOf(primeros, 2 * tramos);
+            indices = Arrays.copyOf(indices, 2 * tramos);
+        }
+        primeros[tramos] = primero;
+        indices[tramos++] = indice;
+    }
+
+    /* Lee la entrada de un laberinto, buscando su tramo */
+    private ByteBuffer entrada(int id) throws IOException {
+        if (id < 0 || id >= laberintos)
+            throw new IndexOutOfBoundsException("No hay laberinto con identificador " + id);
+        int a = 0, b = tramos - 1;
+        while (a < b){
+            int m = (a + b + 1) >>> 1;
+            if (primeros[m] <= id)
+                a = m;
+            else
+                b = m - 1;
+        }
+        long indice = indices[a];
+        ByteBuffer e = lee(canal, indice + (long)(id - primeros[a]) * ENTRADA, ENTRADA);
+        long desde = e.getLong(16);
+        int longitud = e.getInt(24);
+        if (e.getLong(0) != id || desde < 4 || longitud < 0 || desde + longitud > indice)
+            throw new IllegalArgumentException("La entrada " + id + " del indice esta corrupta");
+        return e;
+    }
+
+    /* Regresa donde termina el ultimo pie completo del archivo, o -1 si no
+     * hay ninguno; lee el archivo por bloques desde el final */
+    static long fin(FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        for (long hasta = tamano; hasta >= 4 + PIE; hasta -= BLOQUE){
+            long desde = Math.max(0, hasta - BLOQUE - 3);
+            ByteBuffer bloque = lee(canal, desde, (int)(hasta - desde));
+            for (long n = hasta; n >= Math.max(4 + PIE, desde + 4); n--)
+                if (magia(bloque, (int)(n - 4 - desde), "MAZI") && previos(canal, n) >= 0)
+                    return n;
+        }
+        return -1;
+    }
+
+    /* Regresa cuantos laberintos habia antes del tramo del pie que termina
+     * en n, o -1 si no es un pie completo: su indice debe terminar justo
+     * donde el empieza, y el pie anterior debe estar antes del indice */
+    static int previos(FileChannel canal, long n) throws IOException {
+        ByteBuffer pie = lee(canal, n - PIE, PIE);
+        int laberintos = pie.getInt(0);
+        long indice = pie.getLong(4), anterior = pie.getLong(12);
+        if (!magia(pie, PIE - 4, "MAZI") || laberintos < 0 || indice < 4)
+            return -1;
+        int previos = 0;
+        if (anterior != 0){
+            if (anterior < 4 + PIE || anterior > indice)
+                return -1;
+            ByteBuffer otro = lee(canal, anterior - PIE, PIE);
+            if (!magia(otro, PIE - 4, "MAZI"))
+                return -1;
+            previos = otro.getInt(0);
+        }
+        if (previos < 0 || previos > laberintos ||
+            indice + (long)(laberintos - previos) * ENTRADA != n - PIE)
+            return -1;
+        return previos;
+    }
+
+    /* Lee unos bytes del archivo desde una posicion */
+    static ByteBuffer lee(FileChannel canal, long desde, int cuantos) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(cuantos);
+        lee(canal, b, desde);
+        return b;
+    }
+
+    /* Llena el buffer con los bytes del archivo desde una posicion */
+    static void lee(FileChannel canal, ByteBuffer b, long desde) throws IOException {
+        if (desde < 0 || canal.size() < desde + b.remaining())
+            throw new IllegalArgumentException("El archivo no es un archivo de laberintos");
+        int inicio = b.position();
+        while (b.hasRemaining())
+            desde += canal.read(b, desde);
+        b.position(inicio);
+    }
+
+    /* Nos dice si en la posicion estan los bytes de la cadena */
+    static boolean magia(ByteBuffer bytes, int i, String magia){
+        for (int j = 0; j < magia.length(); j++)
+            if (bytes.get(i + j) != magia.charAt(j))
+                return false;
+        return true;
+    }
+}
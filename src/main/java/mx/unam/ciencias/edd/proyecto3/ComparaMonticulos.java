@@ -0,0 +1,170 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.util.Arrays;
+import java.util.Random;
+import mx.unam.ciencias.edd.GraficaCompacta;
+import mx.unam.ciencias.edd.MonticuloAridad;
+import mx.unam.ciencias.edd.MonticuloEmparejamiento;
+import mx.unam.ciencias.edd.MonticuloEnteros;
+import mx.unam.ciencias.edd.MonticuloMinimo;
+import mx.unam.ciencias.edd.ValorIndexable;
+import mx.unam.ciencias.edd.proyecto3.Laberinto.Casilla;
+
+/**
+ * Programa que compara los monticulos de enteros con el algoritmo de
+ * Dijkstra: el binario, el 4-ario y el de emparejamiento, contra el
+ * {@link MonticuloMinimo} de objetos que usaba {@link
+ * mx.unam.ciencias.edd.Grafica#dijkstra}, con todos los vertices desde el
+ * principio y reordenando hacia arriba y hacia abajo. Se mide sobre
+ * graficas de laberintos generados, que son arboles y casi no disminuyen
+ * llaves, y sobre graficas aleatorias densas, donde casi cada arista
+ * disminuye una llave.
+ * Uso: java -cp target/classes mx.unam.ciencias.edd.proyecto3.ComparaMonticulos [semilla]
+ */
+public class ComparaMonticulos {
+
+    /* Repeticiones de cada medicion */
+    private static final int REPETICIONES = 5;
+    /* Origenes por repeticion */
+    private static final int ORIGENES = 8;
+
+    public static void main(String[] args){
+        long semilla = 2023;
+        try{
+            if (args.length > 0)
+                semilla = Long.parseLong(args[0]);
+        } catch (NumberFormatException nfe){
+            System.err.println("La semilla debe ser un numero");
+            System.exit(1);
+        }
+        System.out.printf("%-22s %9s %9s %10s %10s %10s %10s%n", "grafica", "vertices",
+                          "aristas", "minimo", "binario", "4-ario", "empareja");
+        compara("laberinto 100x100", laberinto(100, 100, semilla), semilla);
+        compara("laberinto 255x255", laberinto(255, 255, semilla), semilla);
+        compara("densa n=1000 p=0.5", densa(1000, 0.5, semilla), semilla);
+        compara("densa n=2000 p=0.9", densa(2000, 0.9, semilla), semilla);
+    }
+
+    /* Mide el monticulo minimo y los tres monticulos de enteros sobre la
+     * grafica e imprime un renglon */
+    private static void compara(String nombre, GraficaCompacta<?> grafica, long semilla){
+        int n = grafica.getElementos();
+        MonticuloEnteros[] monticulos = {
+            null,
+            new MonticuloAridad(n, 2),
+            new MonticuloAridad(n, 4),
+            new MonticuloEmparejamiento(n)
+        };
+        @SuppressWarnings("unchecked") ValorIndexable<Integer>[] valores = (ValorIndexable<Integer>[])new ValorIndexable<?>[n];
+        for (int v = 0; v < n; v++)
+            valores[v] = new ValorIndexable<>(v, Double.MAX_VALUE);
+        double[] milisegundos = new double[monticulos.length];
+        double[] referencia = null;
+        for (int r = -1; r < REPETICIONES; r++){
+            int[] origenes = new Random(semilla + r).ints(ORIGENES, 0, n).toArray();
+            for (int i = 0; i < monticulos.length; i++){
+                long inicio = System.nanoTime();
+                double[] distancias = null;
+                for (int origen : origenes)
+                    distancias = monticulos[i] == null ? dijkstra(grafica, origen, valores) :
+                        grafica.dijkstra(origen, monticulos[i]);
+                long tiempo = System.nanoTime() - inicio;
+                /* La primera vuelta solo calienta la maquina virtual */
+                if (r >= 0)
+                    milisegundos[i] += tiempo / 1e6 / (REPETICIONES * ORIGENES);
+                if (i == 0)
+                    referencia = distancias;
+                else if (!Arrays.equals(referencia, distancias))
+                    throw new IllegalStateException("Los monticulos no coinciden en " + nombre);
+            }
+        }
+        System.out.printf("%-22s %9d %9d %8.2fms %8.2fms %8.2fms %8.2fms%n", nombre, n,
+                          grafica.getAristas(), milisegundos[0], milisegundos[1], milisegundos[2],
+                          milisegundos[3]);
+    }
+
+    /* Dijkstra como lo hacia Grafica con el monticulo minimo: todos los
+     * vertices entran al monticulo con distancia infinita salvo el origen, y
+     * cada distancia que baja se reordena */
+    private static double[] dijkstra(GraficaCompacta<?> grafica, int origen, ValorIndexable<Integer>[] valores){
+        int n = grafica.getElementos();
+        for (int v = 0; v < n; v++)
+            valores[v].setValor(v == origen ? 0 : Double.MAX_VALUE);
+        MonticuloMinimo<ValorIndexable<Integer>> monticulo =
+            new MonticuloMinimo<>(Arrays.asList(valores), n);
+        while (!monticulo.esVacia()){
+            ValorIndexable<Integer> raiz = monticulo.elimina();
+            int u = raiz.getElemento();
+            for (int a = grafica.inicio(u); a < grafica.fin(u); a++){
+                ValorIndexable<Integer> vecino = valores[grafica.destino(a)];
+                if (vecino.getValor() > raiz.getValor() + grafica.peso(a)){
+                    vecino.setValor(raiz.getValor() + grafica.peso(a));
+                    monticulo.reordena(vecino);
+                }
+            }
+        }
+        double[] distancias = new double[n];
+        for (int v = 0; v < n; v++)
+            distancias[v] = valores[v].getValor();
+        return distancias;
+    }
+
+    /* Regresa la grafica compacta de un laberinto generado */
+    private static GraficaCompacta<Casilla> laberinto(int w, int h, long semilla){
+        Laberinto laberinto = new Laberinto(w, h, semilla);
+        laberinto.construyeLaberinto();
+        Casilla[] casillas = new Casilla[w * h];
+        int[] inicio = new int[w * h + 1];
+        int[] destinos = new int[4 * w * h];
+        double[] pesos = new double[4 * w * h];
+        int a = 0;
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++){
+                Casilla casilla = laberinto.getCasilla(x, y);
+                casillas[y * w + x] = casilla;
+                inicio[y * w + x] = a;
+                int puerta = casilla.getPuerta();
+                int[][] vecinos = {{x + 1, y, 14}, {x, y - 1, 13}, {x - 1, y, 11}, {x, y + 1, 7}};
+                for (int[] v : vecinos){
+                    Casilla vecino = laberinto.getCasilla(v[0], v[1]);
+                    if (vecino == null || (puerta & v[2]) != puerta)
+                        continue;
+                    destinos[a] = v[1] * w + v[0];
+                    pesos[a++] = GraficaLaberinto.peso(casilla, vecino);
+                }
+            }
+        inicio[w * h] = a;
+        return new GraficaCompacta<>(casillas, inicio, Arrays.copyOf(destinos, a),
+                                     Arrays.copyOf(pesos, a));
+    }
+
+    /* Regresa una grafica aleatoria con probabilidad p de cada arista */
+    private static GraficaCompacta<Integer> densa(int n, double p, long semilla){
+        Random random = new Random(semilla);
+        boolean[][] aristas = new boolean[n][n];
+        double[][] pesos = new double[n][n];
+        int[] grado = new int[n];
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++)
+                if (random.nextDouble() < p){
+                    aristas[i][j] = aristas[j][i] = true;
+                    pesos[i][j] = pesos[j][i] = 1 + random.nextInt(100);
+                    grado[i]++;
+                    grado[j]++;
+                }
+        Integer[] elementos = new Integer[n];
+        int[] inicio = new int[n + 1];
+        for (int i = 0; i < n; i++){
+            elementos[i] = i;
+            inicio[i + 1] = inicio[i] + grado[i];
+        }
+        int[] destinos = new int[inicio[n]];
+        double[] peso = new double[inicio[n]];
+        for (int i = 0, a = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                if (aristas[i][j]){
+                    destinos[a] = j;
+                    peso[a++] = pesos[i][j];
+                }
+        return new GraficaCompacta<>(elementos, inicio, destinos, peso);
+    }
+}
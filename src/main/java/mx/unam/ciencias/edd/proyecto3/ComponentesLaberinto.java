@@ -0,0 +1,84 @@
+package mx.unam.ciencias.edd.proyecto3;
+import mx.unam.ciencias.edd.ConjuntosDisjuntos;
+
+/**
+ * Clase que etiqueta las componentes conexas de un laberinto en una sola
+ * pasada por renglones sobre las puertas de las casillas: cada casilla se une
+ * con su vecina del este y con la del sur si la pared entre ellas esta
+ * abierta de los dos lados. Despues se puede preguntar en tiempo
+ * practicamente constante si dos casillas estan conectadas, por ejemplo para
+ * rechazar un laberinto sin solucion antes de construir su grafica.
+ */
+public class ComponentesLaberinto {
+
+    /* La cuadricula del laberinto */
+    private Cuadricula cuadricula;
+    /* Los conjuntos de casillas conectadas, por renglones */
+    private ConjuntosDisjuntos conjuntos;
+
+    /* Constructor de la clase */
+    public ComponentesLaberinto(Cuadricula cuadricula){
+        this.cuadricula = cuadricula;
+        int ancho = cuadricula.getAncho(), alto = cuadricula.getAlto();
+        conjuntos = new ConjuntosDisjuntos(ancho * alto);
+        for (int y = 0; y < alto; y++)
+            for (int x = 0; x < ancho; x++){
+                if (cuadricula.abiertaEste(x, y))
+                    conjuntos.une(y * ancho + x, y * ancho + x + 1);
+                if (cuadricula.abiertaSur(x, y))
+                    conjuntos.une(y * ancho + x, (y + 1) * ancho + x);
+            }
+    }
+
+    /**
+     * Regresa el numero de componentes conexas.
+     * @return el numero de componentes conexas.
+     */
+    public int getComponentes(){
+        return conjuntos.getConjuntos();
+    }
+
+    /**
+     * Nos dice si dos casillas estan conectadas.
+     * @param x1 la columna de la primera casilla.
+     * @param y1 el renglon de la primera casilla.
+     * @param x2 la columna de la segunda casilla.
+     * @param y2 el renglon de la segunda casilla.
+     * @return <code>true</code> si las casillas estan en la misma componente,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean conectadas(int x1, int y1, int x2, int y2){
+        int ancho = cuadricula.getAncho();
+        return conjuntos.mismoConjunto(y1 * ancho + x1, y2 * ancho + x2);
+    }
+
+    /**
+     * Regresa el numero de casillas de la componente de una casilla.
+     * @param x la columna de la casilla.
+     * @param y el renglon de la casilla.
+     * @return el numero de casillas de la componente de la casilla.
+     */
+    public int getTamano(int x, int y){
+        return conjuntos.getTamano(y * cuadricula.getAncho() + x);
+    }
+
+    /**
+     * Regresa el numero de componente de cada casilla, por renglones, de 0
+     * al numero de componentes menos uno.
+     * @return el numero de componente de cada casilla.
+     */
+    public int[] etiquetas(){
+        return conjuntos.etiquetas();
+    }
+
+    /**
+     * Nos dice si el laberinto tiene solucion: exactamente dos puertas hacia
+     * fuera, y la entrada y la salida en la misma componente.
+     * @return <code>true</code> si el laberinto tiene solucion,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean tieneSolucion(){
+        int[] huecos = cuadricula.huecos();
+        return huecos.length == 2 && conjuntos.mismoConjunto(huecos[0], huecos[1]);
+    }
+}
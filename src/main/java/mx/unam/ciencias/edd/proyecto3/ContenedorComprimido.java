@@ -0,0 +1,404 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Clase para el contenedor comprimido de laberintos. El contenedor empieza
+ * con <code>MAZC</code>, la altura y el ancho (un byte cada uno, como en el
+ * archivo normal) y el numero de renglones por bloque (dos bytes); le sigue
+ * un indice con la longitud comprimida de cada bloque (cuatro bytes cada una)
+ * y despues los bloques. Cada bloque guarda sus renglones en dos planos,
+ * primero las paredes y luego los puntajes, con dos nibbles por byte, y se
+ * comprime con deflate. Las paredes oeste y norte se guardan como diferencia
+ * contra las paredes este y sur de las vecinas, que en un laberinto valido
+ * son iguales; asi el plano de paredes tiene muy pocos simbolos distintos, y
+ * los puntajes, que son aleatorios, ocupan medio byte en lugar de uno.
+ * Gracias al indice se pueden descomprimir solo los bloques de unos
+ * renglones, y gracias al orden de los bloques se puede leer el contenedor
+ * como un flujo, sin tenerlo completo en memoria.
+ */
+public class ContenedorComprimido {
+
+    /* Clase interna para leer el contenedor como flujo de un archivo normal */
+    private static class Lector extends InputStream {
+
+        /* La entrada comprimida */
+        private InputStream entrada;
+        /* El ancho, la altura y los renglones por bloque */
+        private int ancho, alto, renglonesPorBloque;
+        /* Las longitudes comprimidas de los bloques */
+        private int[] longitudes;
+        /* El siguiente bloque por leer */
+        private int bloque;
+        /* Los bytes descomprimidos pendientes */
+        private byte[] pendientes;
+        /* Cuantos bytes pendientes ya se entregaron */
+        private int entregados;
+
+        /* Constructor de la clase; lee el encabezado y el indice */
+        public Lector(InputStream entrada) throws IOException {
+            this.entrada = entrada;
+            byte[] encabezado = leeCompleto(entrada, ENCABEZADO);
+            if (!esComprimido(encabezado))
+                throw new IOException("La entrada no empieza con MAZC");
+            alto = encabezado[4] & 0xFF;
+            ancho = encabezado[5] & 0xFF;
+            renglonesPorBloque = ((encabezado[6] & 0xFF) << 8) | (encabezado[7] & 0xFF);
+            if (renglonesPorBloque == 0)
+                throw new IOException("El contenedor no tiene renglones por bloque");
+            longitudes = new int[bloques(alto, renglonesPorBloque)];
+            byte[] indice = leeCompleto(entrada, 4 * longitudes.length);
+            for (int i = 0; i < longitudes.length; i++)
+                longitudes[i] = leeEntero(indice, 4 * i);
+            pendientes = new byte[Cuadricula.ENCABEZADO];
+            pendientes[0] = 'M';
+            pendientes[1] = 'A';
+            pendientes[2] = 'Z';
+            pendientes[3] = 'E';
+            pendientes[4] = (byte)alto;
+            pendientes[5] = (byte)ancho;
+        }
+
+        /* Lee un byte */
+        @Override public int read() throws IOException {
+            if (!hayPendientes())
+                return -1;
+            return pendientes[entregados++] & 0xFF;
+        }
+
+        /* Lee varios bytes */
+        @Override public int read(byte[] b, int desde, int cuantos) throws IOException {
+            if (cuantos == 0)
+                return 0;
+            if (!hayPendientes())
+                return -1;
+            int n = Math.min(cuantos, pendientes.length - entregados);
+            System.arraycopy(pendientes, entregados, b, desde, n);
+            entregados += n;
+            return n;
+        }
+
+        /* Cierra la entrada */
+        @Override public void close() throws IOException {
+            entrada.close();
+        }
+
+        /* Descomprime el siguiente bloque si ya se entregaron los pendientes */
+        private boolean hayPendientes() throws IOException {
+            while (entregados == pendientes.length){
+                if (bloque == longitudes.length)
+                    return false;
+                int desde = bloque * renglonesPorBloque;
+                int hasta = Math.min(desde + renglonesPorBloque, alto);
+                pendientes = desempaca(leeCompleto(entrada, longitudes[bloque]), ancho, hasta - desde);
+                entregados = 0;
+                bloque++;
+            }
+            return true;
+        }
+    }
+
+    /* Bytes del encabezado del contenedor */
+    private static final int ENCABEZADO = 8;
+    /* Renglones por bloque por omision */
+    public static final int RENGLONES_POR_BLOQUE = 16;
+
+    /* El contenedor */
+    private ByteBuffer contenedor;
+    /* El ancho, la altura y los renglones por bloque */
+    private int ancho, alto, renglonesPorBloque;
+    /* Donde empieza cada bloque; tiene una entrada mas que bloques */
+    private int[] inicios;
+
+    /**
+     * Construye un lector de acceso directo sobre un contenedor completo.
+     * @param contenedor los bytes del contenedor.
+     * @throws IllegalArgumentException si el contenedor no es valido.
+     */
+    public ContenedorComprimido(byte[] contenedor){
+        this(ByteBuffer.wrap(contenedor));
+    }
+
+    /**
+     * Construye un lector de acceso directo sobre un contenedor completo, por
+     * ejemplo mapeado a memoria; solo se leen los bloques que se piden.
+     * @param contenedor los bytes del contenedor, desde la posicion 0 hasta
+     *        el limite.
+     * @throws IllegalArgumentException si el contenedor no es valido.
+     */
+    public ContenedorComprimido(ByteBuffer contenedor){
+        int n = contenedor.limit();
+        if (n < ENCABEZADO || contenedor.get(0) != 'M' || contenedor.get(1) != 'A' ||
+            contenedor.get(2) != 'Z' || contenedor.get(3) != 'C')
+            throw new IllegalArgumentException("El contenedor no empieza con MAZC");
+        this.contenedor = contenedor;
+        alto = contenedor.get(4) & 0xFF;
+        ancho = contenedor.get(5) & 0xFF;
+        renglonesPorBloque = ((contenedor.get(6) & 0xFF) << 8) | (contenedor.get(7) & 0xFF);
+        if (renglonesPorBloque == 0)
+            throw new IllegalArgumentException("El contenedor no tiene renglones por bloque");
+        int bloques = bloques(alto, renglonesPorBloque);
+        inicios = new int[bloques + 1];
+        inicios[0] = ENCABEZADO + 4 * bloques;
+        if (inicios[0] > n)
+            throw new IllegalArgumentException("El indice del contenedor esta incompleto");
+        for (int i = 0; i < bloques; i++){
+            int longitud = contenedor.getInt(ENCABEZADO + 4 * i);
+            if (longitud < 0 || longitud > n - inicios[i])
+                throw new IllegalArgumentException("La longitud del contenedor no coincide con su indice");
+            inicios[i + 1] = inicios[i] + longitud;
+        }
+        if (inicios[bloques] != n)
+            throw new IllegalArgumentException("La longitud del contenedor no coincide con su indice");
+    }
+
+    /**
+     * Regresa el ancho del laberinto.
+     * @return el ancho del laberinto.
+     */
+    public int getAncho(){
+        return ancho;
+    }
+
+    /**
+     * Regresa la altura del laberinto.
+     * @return la altura del laberinto.
+     */
+    public int getAlto(){
+        return alto;
+    }
+
+    /**
+     * Descomprime los renglones en [desde, hasta), descomprimiendo solo los
+     * bloques que los contienen.
+     * @param desde el primer renglon.
+     * @param hasta el renglon siguiente al ultimo.
+     * @return las casillas de los renglones, por renglones.
+     * @throws IllegalArgumentException si los renglones no son validos o el
+     *         contenedor esta corrupto.
+     */
+    public byte[] renglones(int desde, int hasta){
+        if (desde < 0 || hasta > alto || desde > hasta)
+            throw new IllegalArgumentException("Renglones invalidos");
+        byte[] casillas = new byte[(hasta - desde) * ancho];
+        for (int b = desde / renglonesPorBloque; b * renglonesPorBloque < hasta; b++){
+            int primero = b * renglonesPorBloque;
+            int ultimo = Math.min(primero + renglonesPorBloque, alto);
+            byte[] comprimido = new byte[inicios[b + 1] - inicios[b]];
+            ByteBuffer vista = contenedor.duplicate();
+            vista.position(inicios[b]);
+            vista.get(comprimido);
+            byte[] bloque;
+            try{
+                bloque = desempaca(comprimido, ancho, ultimo - primero);
+            } catch (IOException ioe){
+                throw new IllegalArgumentException(ioe.getMessage());
+            }
+            int de = Math.max(desde, primero), a = Math.min(hasta, ultimo);
+            System.arraycopy(bloque, (de - primero) * ancho, casillas, (de - desde) * ancho, (a - de) * ancho);
+        }
+        return casillas;
+    }
+
+    /**
+     * Descomprime todo el laberinto al formato normal, con encabezado.
+     * @return los bytes del archivo normal.
+     */
+    public byte[] descomprime(){
+        byte[] casillas = renglones(0, alto);
+        byte[] archivo = new byte[Cuadricula.ENCABEZADO + casillas.length];
+        archivo[0] = 'M';
+        archivo[1] = 'A';
+        archivo[2] = 'Z';
+        archivo[3] = 'E';
+        archivo[4] = (byte)alto;
+        archivo[5] = (byte)ancho;
+        System.arraycopy(casillas, 0, archivo, Cuadricula.ENCABEZADO, casillas.length);
+        return archivo;
+    }
+
+    /**
+     * Nos dice si unos bytes empiezan como un contenedor comprimido.
+     * @param bytes los bytes.
+     * @return <code>true</code> si los bytes empiezan con
+     *         <code>MAZC</code>, <code>false</code> en otro caso.
+     */
+    public static boolean esComprimido(byte[] bytes){
+        return bytes.length >= 4 && bytes[0] == 'M' && bytes[1] == 'A' &&
+            bytes[2] == 'Z' && bytes[3] == 'C';
+    }
+
+    /**
+     * Regresa un flujo con los bytes del archivo normal que contiene un
+     * contenedor, descomprimiendo un bloque a la vez mientras se lee.
+     * @param entrada la entrada con el contenedor.
+     * @return el flujo con los bytes del archivo normal.
+     * @throws IOException si ocurre un error al leer el encabezado o el
+     *         indice, o si la entrada no es un contenedor.
+     */
+    public static InputStream lector(InputStream entrada) throws IOException {
+        return new Lector(entrada);
+    }
+
+    /**
+     * Comprime un archivo de laberinto normal y escribe el contenedor.
+     * @param archivo los bytes del archivo normal, con encabezado.
+     * @param salida a donde se escribe el contenedor.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public static void escribe(byte[] archivo, OutputStream salida) throws IOException {
+        escribe(archivo, RENGLONES_POR_BLOQUE, salida);
+    }
+
+    /**
+     * Comprime un archivo de laberinto normal y escribe el contenedor.
+     * @param archivo los bytes del archivo normal, con encabezado.
+     * @param renglonesPorBloque los renglones de cada bloque, de 1 a 65535.
+     * @param salida a donde se escribe el contenedor.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public static void escribe(byte[] archivo, int renglonesPorBloque, OutputStream salida) throws IOException {
+        int alto = archivo[4] & 0xFF, ancho = archivo[5] & 0xFF;
+        int bloques = bloques(alto, renglonesPorBloque);
+        byte[][] comprimidos = new byte[bloques][];
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        for (int b = 0; b < bloques; b++){
+            int desde = b * renglonesPorBloque, hasta = Math.min(desde + renglonesPorBloque, alto);
+            comprimidos[b] = empaca(archivo, Cuadricula.ENCABEZADO + desde * ancho,
+                                    ancho, hasta - desde, deflater);
+        }
+        deflater.end();
+        byte[] encabezado = new byte[ENCABEZADO + 4 * bloques];
+        encabezado[0] = 'M';
+        encabezado[1] = 'A';
+        encabezado[2] = 'Z';
+        encabezado[3] = 'C';
+        encabezado[4] = (byte)alto;
+        encabezado[5] = (byte)ancho;
+        encabezado[6] = (byte)(renglonesPorBloque >>> 8);
+        encabezado[7] = (byte)renglonesPorBloque;
+        for (int b = 0; b < bloques; b++)
+            escribeEntero(encabezado, ENCABEZADO + 4 * b, comprimidos[b].length);
+        salida.write(encabezado);
+        for (byte[] comprimido : comprimidos)
+            salida.write(comprimido);
+    }
+
+    /* Separa las casillas en planos de paredes y puntajes; comprime el de
+     * paredes y le pega el de puntajes tal cual */
+    private static byte[] empaca(byte[] archivo, int desde, int ancho, int renglones, Deflater deflater){
+        int casillas = ancho * renglones;
+        int mitad = (casillas + 1) / 2;
+        byte[] planos = new byte[2 * mitad];
+        for (int i = 0; i < casillas; i++){
+            int c = archivo[desde + i] & 0xFF;
+            int oeste = i % ancho == 0 ? -1 : archivo[desde + i - 1];
+            int norte = i < ancho ? -1 : archivo[desde + i - ancho];
+            int corrimiento = (i & 1) == 0 ? 4 : 0;
+            planos[i >> 1] |= (byte)(((c ^ prediccion(oeste, norte)) & 0x0F) << corrimiento);
+            planos[mitad + (i >> 1)] |= (byte)((c >>> 4) << corrimiento);
+        }
+        deflater.reset();
+        deflater.setInput(planos, 0, mitad);
+        deflater.finish();
+        byte[] salida = new byte[mitad + 64];
+        int n = 0;
+        while (!deflater.finished()){
+            if (n == salida.length){
+                byte[] mas = new byte[salida.length * 2];
+                System.arraycopy(salida, 0, mas, 0, n);
+                salida = mas;
+            }
+            n += deflater.deflate(salida, n, salida.length - n);
+        }
+        byte[] comprimido = new byte[n + mitad];
+        System.arraycopy(salida, 0, comprimido, 0, n);
+        System.arraycopy(planos, mitad, comprimido, n, mitad);
+        return comprimido;
+    }
+
+    /* Descomprime un bloque y junta sus planos en casillas */
+    private static byte[] desempaca(byte[] comprimido, int ancho, int renglones) throws IOException {
+        int casillas = ancho * renglones;
+        int mitad = (casillas + 1) / 2;
+        if (comprimido.length < mitad)
+            throw new IOException("Bloque comprimido incompleto");
+        byte[] planos = new byte[2 * mitad];
+        System.arraycopy(comprimido, comprimido.length - mitad, planos, mitad, mitad);
+        Inflater inflater = new Inflater();
+        try{
+            inflater.setInput(comprimido, 0, comprimido.length - mitad);
+            int n = 0;
+            while (n < mitad && !inflater.finished()){
+                int k = inflater.inflate(planos, n, mitad - n);
+                if (k == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                n += k;
+            }
+            if (n != mitad)
+                throw new IOException("Bloque comprimido incompleto");
+        } catch (DataFormatException dfe){
+            throw new IOException("Bloque comprimido corrupto");
+        } finally {
+            inflater.end();
+        }
+        byte[] bloque = new byte[casillas];
+        for (int i = 0; i < casillas; i++){
+            int corrimiento = (i & 1) == 0 ? 4 : 0;
+            int oeste = i % ancho == 0 ? -1 : bloque[i - 1];
+            int norte = i < ancho ? -1 : bloque[i - ancho];
+            int paredes = ((planos[i >> 1] >>> corrimiento) ^ prediccion(oeste, norte)) & 0x0F;
+            int puntaje = (planos[mitad + (i >> 1)] >>> corrimiento) & 0x0F;
+            bloque[i] = (byte)((puntaje << 4) | paredes);
+        }
+        return bloque;
+    }
+
+    /* Predice las paredes oeste y norte de una casilla con las paredes este
+     * y sur de sus vecinas (-1 si no hay vecina en el bloque: se predice
+     * cerrada); en un laberinto valido la prediccion solo falla en las
+     * puertas del borde, asi que el plano guarda casi solo las paredes este
+     * y sur */
+    private static int prediccion(int oeste, int norte){
+        return ((oeste & Cuadricula.ESTE) != 0 ? Cuadricula.OESTE : 0) |
+            ((norte & Cuadricula.SUR) != 0 ? Cuadricula.NORTE : 0);
+    }
+
+    /* Regresa el numero de bloques */
+    private static int bloques(int alto, int renglonesPorBloque){
+        return (alto + renglonesPorBloque - 1) / renglonesPorBloque;
+    }
+
+    /* Lee exactamente n bytes de la entrada */
+    private static byte[] leeCompleto(InputStream entrada, int n) throws IOException {
+        byte[] bytes = new byte[n];
+        int leidos = 0;
+        while (leidos < n){
+            int k = entrada.read(bytes, leidos, n - leidos);
+            if (k == -1)
+                throw new EOFException("El contenedor termina antes de tiempo");
+            leidos += k;
+        }
+        return bytes;
+    }
+
+    /* Lee un entero de cuatro bytes */
+    private static int leeEntero(byte[] bytes, int i){
+        return ((bytes[i] & 0xFF) << 24) | ((bytes[i+1] & 0xFF) << 16) |
+            ((bytes[i+2] & 0xFF) << 8) | (bytes[i+3] & 0xFF);
+    }
+
+    /* Escribe un entero de cuatro bytes */
+    private static void escribeEntero(byte[] bytes, int i, int n){
+        bytes[i] = (byte)(n >>> 24);
+        bytes[i+1] = (byte)(n >>> 16);
+        bytes[i+2] = (byte)(n >>> 8);
+        bytes[i+3] = (byte)n;
+    }
+}
@@ -0,0 +1,176 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Clase para ver un laberinto como una cuadricula compacta de bytes, uno por
+ * casilla y por renglones, con el mismo formato que el archivo: los cuatro
+ * bits altos son el puntaje y los cuatro bajos las paredes (1 este, 2 norte,
+ * 4 oeste y 8 sur; un bit prendido es una pared). No crea un objeto por
+ * casilla, asi que sirve para los recorridos que solo leen las paredes.
+ */
+public class Cuadricula {
+
+    /* Pared del este */
+    public static final int ESTE = 1;
+    /* Pared del norte */
+    public static final int NORTE = 2;
+    /* Pared del oeste */
+    public static final int OESTE = 4;
+    /* Pared del sur */
+    public static final int SUR = 8;
+    /* Bytes del encabezado del archivo */
+    public static final int ENCABEZADO = 6;
+
+    /* Las casillas por renglones */
+    private byte[] casillas;
+    /* Donde empieza la primera casilla en el arreglo */
+    private int desplazamiento;
+    /* El ancho y la altura */
+    private int ancho, alto;
+
+    /**
+     * Construye la cuadricula a partir de los bytes de un archivo de
+     * laberinto, sin copiarlos.
+     * @param bytes los bytes del archivo, con encabezado.
+     * @throws IllegalArgumentException si el encabezado o la longitud no son
+     *         validos.
+     */
+    public Cuadricula(byte[] bytes){
+        if (bytes.length < ENCABEZADO || bytes[0] != 'M' || bytes[1] != 'A' ||
+            bytes[2] != 'Z' || bytes[3] != 'E')
+            throw new IllegalArgumentException("El archivo no empieza con MAZE");
+        alto = bytes[4] & 0xFF;
+        ancho = bytes[5] & 0xFF;
+        if (bytes.length != ENCABEZADO + ancho * alto)
+            throw new IllegalArgumentException("El archivo debe tener " + (ENCABEZADO + ancho * alto) +
+                                               " bytes y tiene " + bytes.length);
+        casillas = bytes;
+        desplazamiento = ENCABEZADO;
+    }
+
+    /**
+     * Construye la cuadricula sobre un arreglo de casillas por renglones,
+     * sin copiarlo.
+     * @param casillas el arreglo con las casillas.
+     * @param desplazamiento donde empieza la primera casilla.
+     * @param ancho el ancho de la cuadricula.
+     * @param alto la altura de la cuadricula.
+     */
+    public Cuadricula(byte[] casillas, int desplazamiento, int ancho, int alto){
+        this.casillas = casillas;
+        this.desplazamiento = desplazamiento;
+        this.ancho = ancho;
+        this.alto = alto;
+    }
+
+    /**
+     * Construye la cuadricula de un laberinto.
+     * @param laberinto el laberinto.
+     */
+    public Cuadricula(Laberinto laberinto){
+        int[] dimensiones = laberinto.getDimensiones();
+        alto = dimensiones[0];
+        ancho = dimensiones[1];
+        casillas = new byte[ancho * alto];
+        for (int y = 0; y < alto; y++)
+            for (int x = 0; x < ancho; x++)
+                casillas[y * ancho + x] = laberinto.getCasilla(x, y).construirByte();
+    }
+
+    /**
+     * Regresa el ancho de la cuadricula.
+     * @return el ancho de la cuadricula.
+     */
+    public int getAncho(){
+        return ancho;
+    }
+
+    /**
+     * Regresa la altura de la cuadricula.
+     * @return la altura de la cuadricula.
+     */
+    public int getAlto(){
+        return alto;
+    }
+
+    /**
+     * Regresa el byte de la casilla, entre 0 y 255.
+     * @param x la columna de la casilla.
+     * @param y el renglon de la casilla.
+     * @return el byte de la casilla.
+     */
+    public int getCasilla(int x, int y){
+        return casillas[desplazamiento + y * ancho + x] & 0xFF;
+    }
+
+    /**
+     * Regresa el puntaje de la casilla.
+     * @param x la columna de la casilla.
+     * @param y el renglon de la casilla.
+     * @return el puntaje de la casilla.
+     */
+    public int getPuntaje(int x, int y){
+        return getCasilla(x, y) >>> 4;
+    }
+
+    /**
+     * Regresa las paredes de la casilla.
+     * @param x la columna de la casilla.
+     * @param y el renglon de la casilla.
+     * @return las paredes de la casilla.
+     */
+    public int getParedes(int x, int y){
+        return getCasilla(x, y) & 0x0F;
+    }
+
+    /**
+     * Nos dice si se puede pasar de la casilla a su vecina del este; ninguna
+     * de las dos debe tener pared entre ellas.
+     * @param x la columna de la casilla.
+     * @param y el renglon de la casilla.
+     * @return <code>true</code> si se puede pasar al este, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean abiertaEste(int x, int y){
+        return x + 1 < ancho && (getCasilla(x, y) & ESTE) == 0 &&
+            (getCasilla(x + 1, y) & OESTE) == 0;
+    }
+
+    /**
+     * Nos dice si se puede pasar de la casilla a su vecina del sur; ninguna
+     * de las dos debe tener pared entre ellas.
+     * @param x la columna de la casilla.
+     * @param y el renglon de la casilla.
+     * @return <code>true</code> si se puede pasar al sur, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean abiertaSur(int x, int y){
+        return y + 1 < alto && (getCasilla(x, y) & SUR) == 0 &&
+            (getCasilla(x, y + 1) & NORTE) == 0;
+    }
+
+    /**
+     * Regresa las casillas con una puerta hacia fuera del laberinto, como
+     * <code>y * ancho + x</code>, en el orden en que las busca el laberinto:
+     * la columna oeste, el renglon norte, la columna este y el renglon sur.
+     * @return las casillas con una puerta hacia fuera.
+     */
+    public int[] huecos(){
+        int[] huecos = new int[2 * (ancho + alto)];
+        int n = 0;
+        for (int y = 0; y < alto; y++)
+            if ((getCasilla(0, y) & OESTE) == 0)
+                huecos[n++] = y * ancho;
+        for (int x = 0; x < ancho; x++)
+            if ((getCasilla(x, 0) & NORTE) == 0)
+                huecos[n++] = x;
+        for (int y = 0; y < alto; y++)
+            if ((getCasilla(ancho - 1, y) & ESTE) == 0)
+                huecos[n++] = y * ancho + ancho - 1;
+        for (int x = 0; x < ancho; x++)
+            if ((getCasilla(x, alto - 1) & SUR) == 0)
+                huecos[n++] = (alto - 1) * ancho + x;
+        int[] resultado = new int[n];
+        System.arraycopy(huecos, 0, resultado, 0, n);
+        return resultado;
+    }
+}
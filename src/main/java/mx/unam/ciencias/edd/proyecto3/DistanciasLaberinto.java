@@ -0,0 +1,216 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.OutputStream;
+import mx.unam.ciencias.edd.MonticuloAridad;
+
+/**
+ * Clase que calcula, en una sola corrida de Dijkstra sobre la cuadricula, la
+ * distancia de una casilla de origen a todas las demas, con los mismos pesos
+ * que {@link GraficaLaberinto} (la suma de los puntajes de las dos casillas
+ * mas uno). Los vecinos de cada casilla salen de sus paredes, sin construir
+ * una grafica, y las distancias y los anteriores se guardan en arreglos de
+ * enteros indexados por <code>y * ancho + x</code>. Las distancias se pueden
+ * escribir como un mapa binario compacto o convertir en los colores de un
+ * mapa de calor.
+ */
+public class DistanciasLaberinto {
+
+    /** Distancia de las casillas que no se alcanzan desde el origen. */
+    public static final int INALCANZABLE = -1;
+
+    /* Los colores del mapa de calor, de la distancia 0 a la maxima */
+    private static final int[] ESCALA = { 0x30123B, 0x4686FB, 0x1AE4B6, 0xA2FC3C, 0xFABA39, 0xE4460A, 0x7A0403 };
+    /* El color de las casillas inalcanzables */
+    private static final int GRIS = 0x808080;
+
+    /* La cuadricula */
+    private Cuadricula cuadricula;
+    /* La casilla de origen */
+    private int origen;
+    /* La distancia de cada casilla al origen */
+    private int[] distancias;
+    /* La casilla anterior de cada casilla en su trayectoria desde el origen */
+    private int[] anteriores;
+    /* La distancia mas grande a una casilla alcanzable */
+    private int maxima;
+
+    /**
+     * Calcula las distancias desde la entrada del laberinto, la primera de
+     * sus puertas hacia fuera (como en {@link Cuadricula#huecos}).
+     * @param cuadricula la cuadricula del laberinto.
+     * @throws IllegalArgumentException si el laberinto no tiene puertas.
+     */
+    public DistanciasLaberinto(Cuadricula cuadricula){
+        this(cuadricula, entrada(cuadricula));
+    }
+
+    /**
+     * Calcula las distancias desde una casilla.
+     * @param cuadricula la cuadricula del laberinto.
+     * @param origen la casilla de origen, como <code>y * ancho + x</code>.
+     */
+    public DistanciasLaberinto(Cuadricula cuadricula, int origen){
+        this.cuadricula = cuadricula;
+        this.origen = origen;
+        int ancho = cuadricula.getAncho(), n = ancho * cuadricula.getAlto();
+        distancias = new int[n];
+        anteriores = new int[n];
+        for (int i = 0; i < n; i++){
+            distancias[i] = INALCANZABLE;
+            anteriores[i] = -1;
+        }
+        boolean[] definitivas = new boolean[n];
+        MonticuloAridad monticulo = new MonticuloAridad(n);
+        distancias[origen] = 0;
+        monticulo.agrega(origen, 0);
+        while (!monticulo.esVacia()){
+            int u = monticulo.elimina();
+            definitivas[u] = true;
+            maxima = distancias[u];
+            int x = u % ancho, y = u / ancho;
+            if (cuadricula.abiertaEste(x, y))
+                relaja(u, u + 1, definitivas, monticulo);
+            if (x > 0 && cuadricula.abiertaEste(x - 1, y))
+                relaja(u, u - 1, definitivas, monticulo);
+            if (cuadricula.abiertaSur(x, y))
+                relaja(u, u + ancho, definitivas, monticulo);
+            if (y > 0 && cuadricula.abiertaSur(x, y - 1))
+                relaja(u, u - ancho, definitivas, monticulo);
+        }
+    }
+
+    /**
+     * Regresa la casilla de origen.
+     * @return la casilla de origen, como <code>y * ancho + x</code>.
+     */
+    public int getOrigen(){
+        return origen;
+    }
+
+    /**
+     * Regresa la distancia de una casilla al origen.
+     * @param x la columna de la casilla.
+     * @param y el renglon de la casilla.
+     * @return la distancia de la casilla al origen, o {@link #INALCANZABLE}.
+     */
+    public int getDistancia(int x, int y){
+        return distancias[y * cuadricula.getAncho() + x];
+    }
+
+    /**
+     * Regresa las distancias de todas las casillas al origen, por renglones;
+     * el arreglo no es una copia.
+     * @return las distancias de las casillas al origen.
+     */
+    public int[] getDistancias(){
+        return distancias;
+    }
+
+    /**
+     * Regresa la distancia mas grande a una casilla alcanzable.
+     * @return la distancia mas grande a una casilla alcanzable.
+     */
+    public int getMaxima(){
+        return maxima;
+    }
+
+    /**
+     * Regresa la trayectoria de peso minimo del origen a una casilla.
+     * @param destino la casilla destino, como <code>y * ancho + x</code>.
+     * @return las casillas de la trayectoria, del origen al destino, o un
+     *         arreglo vacio si el destino no se alcanza.
+     */
+    public int[] trayectoria(int destino){
+        if (distancias[destino] == INALCANZABLE)
+            return new int[0];
+        int n = 1;
+        for (int c = destino; c != origen; c = anteriores[c])
+            n++;
+        int[] trayectoria = new int[n];
+        for (int c = destino; n > 0; c = anteriores[c])
+            trayectoria[--n] = c;
+        return trayectoria;
+    }
+
+    /**
+     * Escribe las distancias como un mapa binario: los bytes
+     * <code>MAZD</code>, la altura y el ancho (un byte cada uno, como en el
+     * archivo del laberinto), cuantos bytes ocupa cada distancia (de 1 a 4,
+     * los menos en que cabe la maxima) y las distancias por renglones, con
+     * el byte mas significativo primero; las casillas inalcanzables tienen
+     * todos sus bits prendidos. No vacia ni cierra la salida.
+     * @param flujo la salida.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(OutputStream flujo) throws IOException {
+        int ancho = cuadricula.getAncho(), alto = cuadricula.getAlto();
+        int k = 1;
+        /* El valor con todos los bits prendidos no debe ser una distancia */
+        while (k < 4 && maxima >= (1L << (8 * k)) - 1)
+            k++;
+        flujo.write(new byte[] { 'M', 'A', 'Z', 'D', (byte)alto, (byte)ancho, (byte)k });
+        byte[] renglon = new byte[k * ancho];
+        for (int y = 0; y < alto; y++){
+            for (int x = 0; x < ancho; x++){
+                int d = distancias[y * ancho + x];
+                for (int b = 0; b < k; b++)
+                    renglon[k * x + b] = (byte)(d >>> (8 * (k - 1 - b)));
+            }
+            flujo.write(renglon);
+        }
+    }
+
+    /**
+     * Regresa el color de cada casilla en un mapa de calor de las
+     * distancias, de morado (el origen) a rojo (la distancia maxima); las
+     * casillas inalcanzables son grises.
+     * @return el color de cada casilla como <code>0xRRGGBB</code>, por
+     *         renglones.
+     */
+    public int[] colores(){
+        int[] colores = new int[distancias.length];
+        int tramos = ESCALA.length - 1;
+        for (int i = 0; i < distancias.length; i++){
+            if (distancias[i] == INALCANZABLE){
+                colores[i] = GRIS;
+                continue;
+            }
+            long t = maxima == 0 ? 0 : (long)distancias[i] * tramos * 256 / maxima;
+            int tramo = (int)Math.min(t >> 8, tramos - 1);
+            colores[i] = mezcla(ESCALA[tramo], ESCALA[tramo + 1], (int)(t - 256L * tramo));
+        }
+        return colores;
+    }
+
+    /* Mezcla dos colores; la proporcion del segundo va de 0 a 256 */
+    private static int mezcla(int a, int b, int p){
+        int color = 0;
+        for (int c = 0; c < 24; c += 8){
+            int ca = (a >> c) & 0xFF, cb = (b >> c) & 0xFF;
+            color |= (ca + (cb - ca) * p / 256) << c;
+        }
+        return color;
+    }
+
+    /* Relaja la arista de u a v */
+    private void relaja(int u, int v, boolean[] definitivas, MonticuloAridad monticulo){
+        if (definitivas[v])
+            return;
+        int ancho = cuadricula.getAncho();
+        int d = distancias[u] + cuadricula.getPuntaje(u % ancho, u / ancho) +
+            cuadricula.getPuntaje(v % ancho, v / ancho) + 1;
+        if (distancias[v] == INALCANZABLE || d < distancias[v]){
+            distancias[v] = d;
+            anteriores[v] = u;
+            monticulo.agrega(v, d);
+        }
+    }
+
+    /* Regresa la entrada del laberinto */
+    private static int entrada(Cuadricula cuadricula){
+        int[] huecos = cuadricula.huecos();
+        if (huecos.length == 0)
+            throw new IllegalArgumentException("El laberinto no tiene entrada");
+        return huecos[0];
+    }
+}
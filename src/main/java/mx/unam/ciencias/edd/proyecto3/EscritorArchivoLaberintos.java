@@ -0,0 +1,150 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Clase para agregar laberintos a un archivo de laberintos (ver {@link
+ * ArchivoLaberintos}). Los laberintos nuevos se escriben al final, despues
+ * del pie, sin tocar nada de lo que ya estaba; al cerrar se escriben el
+ * indice de los laberintos nuevos y un pie que apunta al anterior, asi que
+ * cada vez solo se escriben bytes por lo que se agrega. Mientras no se
+ * escribe el pie nuevo, el pie anterior sigue siendo el ultimo completo, asi
+ * que si la escritura se interrumpe el archivo conserva los laberintos que
+ * ya tenia; la siguiente vez que se abre se descarta lo que quedo a medias.
+ */
+public class EscritorArchivoLaberintos implements AutoCloseable {
+
+    /* El canal del archivo */
+    private FileChannel canal;
+    /* El indice de los laberintos nuevos */
+    private ByteBuffer indice;
+    /* El numero de laberintos */
+    private int laberintos;
+    /* El numero de laberintos que ya tenia el archivo */
+    private int previos;
+    /* Donde termina el pie anterior, o 0 si no hay */
+    private long anterior;
+
+    /**
+     * Abre un archivo de laberintos para agregarle laberintos; si no existe
+     * o esta vacio, lo crea.
+     * @param archivo la ruta del archivo.
+     * @throws IOException si no se puede abrir el archivo.
+     * @throws IllegalArgumentException si el archivo existe pero no es un
+     *         archivo de laberintos.
+     */
+    public EscritorArchivoLaberintos(String archivo) throws IOException {
+        canal = new RandomAccessFile(archivo, "rw").getChannel();
+        indice = ByteBuffer.allocate(64 * ArchivoLaberintos.ENTRADA);
+        try {
+            abre();
+        } catch (IOException | RuntimeException e){
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Agrega un laberinto al final del archivo.
+     * @param semilla la semilla con la que se genero el laberinto.
+     * @param laberinto los bytes del laberinto, como archivo normal o como
+     *        contenedor comprimido.
+     * @return el identificador del laberinto.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public int agrega(long semilla, byte[] laberinto) throws IOException {
+        if (laberinto.length < Cuadricula.ENCABEZADO)
+            throw new IllegalArgumentException("El laberinto no tiene encabezado");
+        long desde = canal.position();
+        ByteBuffer b = ByteBuffer.wrap(laberinto);
+        while (b.hasRemaining())
+            canal.write(b);
+        crece(laberintos - previos + 1);
+        indice.putLong(laberintos);
+        indice.putLong(semilla);
+        indice.putLong(desde);
+        indice.putInt(laberinto.length);
+        indice.put(laberinto[5]);
+        indice.put(laberinto[4]);
+        indice.putShort((short)0);
+        return laberintos++;
+    }
+
+    /**
+     * Regresa el numero de laberintos del archivo, contando los agregados.
+     * @return el numero de laberintos del archivo.
+     */
+    public int getLaberintos(){
+        return laberintos;
+    }
+
+    /**
+     * Escribe al final el indice de los laberintos nuevos y despues el pie,
+     * y cierra el archivo; los laberintos y el indice se mandan al disco
+     * antes de escribir el pie. Si no se agrego ningun laberinto y el archivo
+     * ya tenia pie, no se escribe nada.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    @Override public void close() throws IOException {
+        if (!canal.isOpen())
+            return;
+        try {
+            if (laberintos == previos && anterior != 0)
+                return;
+            long desde = canal.position();
+            ByteBuffer pie = ByteBuffer.allocate(ArchivoLaberintos.PIE);
+            pie.putInt(laberintos);
+            pie.putLong(desde);
+            pie.putLong(anterior);
+            pie.put(new byte[] { 'M', 'A', 'Z', 'I' });
+            pie.flip();
+            indice.flip();
+            while (indice.hasRemaining())
+                canal.write(indice);
+            canal.force(false);
+            while (pie.hasRemaining())
+                canal.write(pie);
+            canal.force(false);
+        } finally {
+            canal.close();
+        }
+    }
+
+    /* Lee el ultimo pie completo, descarta lo que haya despues y se pone al
+     * final; el indice de lo que ya estaba no hace falta */
+    private void abre() throws IOException {
+        if (canal.size() == 0){
+            canal.write(ByteBuffer.wrap(new byte[] { 'M', 'A', 'Z', 'A' }));
+            return;
+        }
+        if (canal.size() < 4 || !ArchivoLaberintos.magia(ArchivoLaberintos.lee(canal, 0, 4), 0, "MAZA"))
+            throw new IllegalArgumentException("El archivo no es un archivo de laberintos");
+        long fin = 4;
+        if (canal.size() >= 4 + ArchivoLaberintos.PIE){
+            long n = ArchivoLaberintos.fin(canal);
+            if (n > 0){
+                laberintos = previos = ArchivoLaberintos.lee(canal, n - ArchivoLaberintos.PIE, 4).getInt(0);
+                anterior = fin = n;
+            }
+        }
+        if (canal.size() > fin)
+            canal.truncate(fin);
+        canal.position(fin);
+    }
+
+    /* Se asegura de que quepan las entradas en el indice */
+    private void crece(int entradas){
+        long necesarios = (long)entradas * ArchivoLaberintos.ENTRADA;
+        if (necesarios <= indice.capacity())
+            return;
+        long capacidad = indice.capacity();
+        while (capacidad < necesarios)
+            capacidad *= 2;
+        ByteBuffer nuevo = ByteBuffer.allocate((int)Math.min(capacidad, Integer.MAX_VALUE - 8));
+        indice.flip();
+        nuevo.put(indice);
+        indice = nuevo;
+    }
+}
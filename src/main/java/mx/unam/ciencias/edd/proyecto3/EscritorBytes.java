@@ -0,0 +1,109 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Clase auxiliar para escribir bytes y numeros en texto a una salida, usando
+ * un solo arreglo de bytes reutilizable y sin pasar por cadenas.
+ */
+public class EscritorBytes {
+
+    /* Tamaño del arreglo de bytes */
+    private static final int TAMANO = 1 << 16;
+
+    /* La salida */
+    private OutputStream salida;
+    /* Los bytes pendientes de escribir */
+    private byte[] buffer;
+    /* Cuantos bytes hay pendientes */
+    private int pendientes;
+    /* Arreglo auxiliar para los digitos de un numero */
+    private byte[] digitos;
+
+    /* Constructor de la clase */
+    public EscritorBytes(OutputStream salida){
+        this.salida = salida;
+        buffer = new byte[TAMANO];
+        digitos = new byte[20];
+    }
+
+    /**
+     * Escribe un byte.
+     * @param b el byte a escribir.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(int b) throws IOException {
+        if (pendientes == buffer.length)
+            vacia();
+        buffer[pendientes++] = (byte)b;
+    }
+
+    /**
+     * Escribe un arreglo de bytes.
+     * @param bytes los bytes a escribir.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(byte[] bytes) throws IOException {
+        escribe(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Escribe una parte de un arreglo de bytes.
+     * @param bytes los bytes a escribir.
+     * @param desde el primer byte a escribir.
+     * @param cuantos el numero de bytes a escribir.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(byte[] bytes, int desde, int cuantos) throws IOException {
+        if (cuantos > buffer.length - pendientes){
+            vacia();
+            if (cuantos > buffer.length){
+                salida.write(bytes, desde, cuantos);
+                return;
+            }
+        }
+        System.arraycopy(bytes, desde, buffer, pendientes, cuantos);
+        pendientes += cuantos;
+    }
+
+    /**
+     * Escribe un numero en decimal.
+     * @param numero el numero a escribir.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribeNumero(long numero) throws IOException {
+        /* Se trabaja con el numero en negativo para que Long.MIN_VALUE, que
+         * no tiene positivo, tambien se escriba bien */
+        if (numero < 0)
+            escribe('-');
+        else
+            numero = -numero;
+        int n = 0;
+        do {
+            digitos[n++] = (byte)('0' - numero % 10);
+            numero /= 10;
+        } while (numero < 0);
+        if (n > buffer.length - pendientes)
+            vacia();
+        while (n > 0)
+            buffer[pendientes++] = digitos[--n];
+    }
+
+    /**
+     * Escribe los bytes pendientes en la salida.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void vacia() throws IOException {
+        salida.write(buffer, 0, pendientes);
+        pendientes = 0;
+    }
+
+    /**
+     * Escribe los bytes pendientes y vacia la salida, sin cerrarla.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void termina() throws IOException {
+        vacia();
+        salida.flush();
+    }
+}
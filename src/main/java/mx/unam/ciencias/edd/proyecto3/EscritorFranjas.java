@@ -0,0 +1,126 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Clase que genera una salida por franjas en paralelo y las escribe en
+ * orden. Cada franja se genera en un hilo de la alberca a su propio arreglo
+ * de bytes, y este hilo escribe las franjas terminadas en el orden en que se
+ * pidieron; a lo mas hay un numero fijo de franjas en vuelo, asi que la
+ * memoria no depende del numero de franjas. Si las franjas no dependen unas
+ * de otras, la salida es la misma que al generarlas una tras otra. Si la
+ * salida es una {@link SalidaGzip}, cada hilo tambien comprime su franja en
+ * un miembro gzip aparte.
+ */
+public class EscritorFranjas {
+
+    /**
+     * Interfaz para generar una franja de la salida.
+     */
+    @FunctionalInterface
+    public interface Generador {
+
+        /**
+         * Escribe una franja de la salida.
+         * @param franja el numero de franja, desde 0.
+         * @param salida a donde se escribe la franja.
+         * @throws IOException si ocurre un error al escribir.
+         */
+        public void genera(int franja, OutputStream salida) throws IOException;
+    }
+
+    /* La alberca de hilos, o null para generar en este hilo */
+    private ExecutorService alberca;
+    /* El maximo de franjas en vuelo */
+    private int enVuelo;
+
+    /**
+     * Construye un escritor que genera las franjas en este hilo, una tras
+     * otra y directo a la salida.
+     */
+    public EscritorFranjas(){
+        this(null, 1);
+    }
+
+    /**
+     * Construye un escritor que genera las franjas en una alberca de hilos.
+     * @param alberca la alberca de hilos, o <code>null</code> para generar
+     *        en este hilo.
+     * @param enVuelo el maximo de franjas generadas o en generacion que aun
+     *        no se escriben.
+     * @throws IllegalArgumentException si enVuelo es menor que 1.
+     */
+    public EscritorFranjas(ExecutorService alberca, int enVuelo){
+        if (enVuelo < 1)
+            throw new IllegalArgumentException("Debe haber al menos una franja en vuelo");
+        this.alberca = alberca;
+        this.enVuelo = enVuelo;
+    }
+
+    /**
+     * Genera las franjas y las escribe en orden en la salida; no vacia ni
+     * cierra la salida.
+     * @param franjas el numero de franjas.
+     * @param generador el generador de cada franja.
+     * @param salida la salida.
+     * @throws IOException si ocurre un error al generar o al escribir.
+     */
+    public void escribe(int franjas, Generador generador, OutputStream salida) throws IOException {
+        if (alberca == null){
+            for (int i = 0; i < franjas; i++)
+                generador.genera(i, salida);
+            return;
+        }
+        SalidaGzip gzip = salida instanceof SalidaGzip ? (SalidaGzip)salida : null;
+        ArrayDeque<Future<byte[]>> pendientes = new ArrayDeque<>();
+        try {
+            for (int i = 0; i < franjas; i++){
+                if (pendientes.size() == enVuelo)
+                    escribe(espera(pendientes.poll()), salida, gzip);
+                int franja = i;
+                pendientes.add(alberca.submit(() -> {
+                            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                            generador.genera(franja, bytes);
+                            return gzip == null ? bytes.toByteArray() : gzip.comprime(bytes.toByteArray());
+                        }));
+            }
+            while (!pendientes.isEmpty())
+                escribe(espera(pendientes.poll()), salida, gzip);
+        } finally {
+            for (Future<byte[]> pendiente : pendientes)
+                pendiente.cancel(true);
+        }
+    }
+
+    /* Escribe una franja terminada, como miembro si la salida es gzip */
+    private static void escribe(byte[] franja, OutputStream salida, SalidaGzip gzip) throws IOException {
+        if (gzip != null)
+            gzip.escribeMiembro(franja);
+        else
+            salida.write(franja);
+    }
+
+    /* Espera a que termine una franja y regresa sus bytes */
+    private static byte[] espera(Future<byte[]> franja) throws IOException {
+        try {
+            return franja.get();
+        } catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw new IOException("Se interrumpio la generacion de una franja");
+        } catch (ExecutionException ee){
+            Throwable causa = ee.getCause();
+            if (causa instanceof IOException)
+                throw (IOException)causa;
+            if (causa instanceof RuntimeException)
+                throw (RuntimeException)causa;
+            if (causa instanceof Error)
+                throw (Error)causa;
+            throw new IOException(causa);
+        }
+    }
+}
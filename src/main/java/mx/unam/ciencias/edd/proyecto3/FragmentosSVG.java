@@ -0,0 +1,61 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Clase con los pedazos de codigo svg, ya en bytes, que comparten {@link
+ * LaberintoSVG}, {@link TrazosSVG} y {@link SimbolosSVG}, para que los tres
+ * escriban el mismo encabezado, los mismos puntos y el mismo cierre.
+ */
+class FragmentosSVG {
+
+    /* El inicio del documento */
+    private static final byte[] INICIO = bytes("<?xml version='1.0' encoding='UTF-8' ?>\n<svg");
+    /* Los espacios de nombres, para los documentos que usan referencias */
+    private static final byte[] ESPACIOS = bytes(" xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink'");
+    /* Las dimensiones */
+    private static final byte[] ANCHO = bytes(" width='");
+    private static final byte[] ALTURA = bytes("' height='");
+    private static final byte[] ENCABEZADO_FIN = bytes("'>\n");
+    /* El circulo de un punto */
+    private static final byte[] PUNTO_CX = bytes("\t<circle cx='");
+    private static final byte[] PUNTO_CY = bytes("' cy='");
+
+    /* El grupo que tiene al dibujo */
+    static final byte[] GRUPO = bytes(" \t<g>\n");
+    /* El cierre del grupo y del documento */
+    static final byte[] CIERRE = bytes("\t</g> \n</svg>");
+    /* El final del circulo de la entrada y de la salida, con su color */
+    static final byte[] ENTRADA = bytes("' r='10' stroke='mediumspringgreen' stroke-width='1' fill='mediumspringgreen' /> \n");
+    static final byte[] SALIDA = bytes("' r='10' stroke='maroon' stroke-width='1' fill='maroon' /> \n");
+
+    /* No se crean instancias */
+    private FragmentosSVG(){}
+
+    /* Escribe el encabezado del documento, hasta la etiqueta svg; con
+     * espacios de nombres si el documento usa referencias */
+    static void encabezado(int ancho, int alto, boolean referencias, EscritorBytes escritor) throws IOException {
+        escritor.escribe(INICIO);
+        if (referencias)
+            escritor.escribe(ESPACIOS);
+        escritor.escribe(ANCHO);
+        escritor.escribeNumero(ancho);
+        escritor.escribe(ALTURA);
+        escritor.escribeNumero(alto);
+        escritor.escribe(ENCABEZADO_FIN);
+    }
+
+    /* Escribe el circulo de un punto; la cola es su final, con su color */
+    static void punto(int x, int y, byte[] cola, EscritorBytes escritor) throws IOException {
+        escritor.escribe(PUNTO_CX);
+        escritor.escribeNumero(x);
+        escritor.escribe(PUNTO_CY);
+        escritor.escribeNumero(y);
+        escritor.escribe(cola);
+    }
+
+    /* Regresa los bytes de una cadena */
+    static byte[] bytes(String cadena){
+        return cadena.getBytes(StandardCharsets.UTF_8);
+    }
+}
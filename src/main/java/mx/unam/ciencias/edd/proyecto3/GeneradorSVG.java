@@ -1,5 +1,8 @@
 package mx.unam.ciencias.edd.proyecto3;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import mx.unam.ciencias.edd.Grafica;
 import mx.unam.ciencias.edd.Lista;
 import mx.unam.ciencias.edd.proyecto3.Laberinto.Casilla;
@@ -26,13 +29,24 @@ public class GeneradorSVG {
 
     /* Ejecuta el programa */
     public void ejecuta(){
+        ejecuta(System.out);
+    }
+
+    /* Ejecuta el programa, escribiendo el svg en una salida */
+    public void ejecuta(OutputStream flujo){
         Lista<Casilla> laberintoSVG = new Lista<>();
         int[] entrada = laberinto.getEntrada().getCoordenadas();
         int[] salida = laberinto.getSalida().getCoordenadas();
         for (Casilla casilla : graficaL)
             laberintoSVG.agrega(casilla);
         LaberintoSVG svg = new LaberintoSVG(laberintoSVG, solucion, laberinto.getDimensiones(), entrada, salida);
-        String archivoSVG = svg.svg();
-        System.out.println(archivoSVG);
+        try{
+            svg.escribe(flujo);
+            flujo.write(System.lineSeparator().getBytes(StandardCharsets.UTF_8));
+            flujo.flush();
+        } catch (IOException ioe){
+            System.err.println("Ocurrio un error al escribir el svg");
+            System.exit(1);
+        }
     }
 }
@@ -1,5 +1,6 @@
 package mx.unam.ciencias.edd.proyecto3;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /** 
@@ -11,9 +12,12 @@ public class GenerarArchivo {
     Laberinto laberinto;
     /* El arreglo de bytes del laberinto */
     byte[] laberintoBytes;
+    /* La semilla del laberinto */
+    long semilla;
 
     /* Constructor de la clase */
     public GenerarArchivo(int w, int h, long seed){
+        this.semilla = seed;
         this.laberinto = new Laberinto(w, h, seed);
         this.laberinto.construyeLaberinto();
         laberintoBytes = laberinto.arregloCasillas((byte)(w & 0xFF), (byte)(h & 0xFF));
@@ -21,14 +25,35 @@ public class GenerarArchivo {
 
     /* Metodo auxiliar que guarda los bytes en la salida estandar */
     public void creaArchivo(){
+        creaArchivo(false);
+    }
+
+    /* Metodo auxiliar que guarda los bytes en la salida estandar, o el
+     * contenedor comprimido si se pide */
+    public void creaArchivo(boolean comprimido){
         try{
             BufferedOutputStream out = new BufferedOutputStream(System.out);
-            for (int i = 0; i < laberintoBytes.length; i++){
-                out.write(laberintoBytes[i] & 0xFF);
-            }
+            if (comprimido)
+                ContenedorComprimido.escribe(laberintoBytes, out);
+            else
+                for (int i = 0; i < laberintoBytes.length; i++){
+                    out.write(laberintoBytes[i] & 0xFF);
+                }
             out.close();
         } catch (IOException ioe){
             System.err.println("Ocurrio un error al escribir en el archivo");
         }
     }
+
+    /* Metodo auxiliar que agrega el laberinto a un archivo de laberintos, y
+     * regresa su identificador */
+    public int agregaA(EscritorArchivoLaberintos escritor, boolean comprimido) throws IOException {
+        byte[] bytes = laberintoBytes;
+        if (comprimido){
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ContenedorComprimido.escribe(laberintoBytes, out);
+            bytes = out.toByteArray();
+        }
+        return escritor.agrega(semilla, bytes);
+    }
 }
@@ -1,8 +1,11 @@
 package mx.unam.ciencias.edd.proyecto3;
+import java.util.Iterator;
 import mx.unam.ciencias.edd.Grafica;
 import mx.unam.ciencias.edd.Pila;
 import mx.unam.ciencias.edd.proyecto3.Laberinto.Casilla;
+import mx.unam.ciencias.edd.Cola;
 import mx.unam.ciencias.edd.Color;
+import mx.unam.ciencias.edd.Diccionario;
 import mx.unam.ciencias.edd.Lista;
 import mx.unam.ciencias.edd.VerticeGrafica;
 
@@ -19,6 +22,10 @@ public class GraficaLaberinto {
     Grafica<Casilla> lGrafica;
     /* Lista de casillas que forman la solucion al laberinto */
     Lista<Casilla> dijkstra;
+    /* La grafica reducida: solo bifurcaciones, la entrada y la salida */
+    Grafica<Casilla> reducida;
+    /* Las casillas interiores de cada corredor contraido, por sus extremos */
+    Diccionario<Casilla, Diccionario<Casilla, Lista<Casilla>>> corredores;
 
     /* Constructor de la clase */
     public GraficaLaberinto(Laberinto laberinto){
@@ -30,9 +37,15 @@ public class GraficaLaberinto {
             for (int j = 0; j < this.casillas[i].length; j++)
                 lGrafica.agrega(laberinto.getCasilla(j, i));
         conectaCasillas();
-        Lista<VerticeGrafica<Casilla>> trajectoriaPMinimo = lGrafica.dijkstra(laberinto.getEntrada(), laberinto.getSalida());
+        reduceGrafica();
+        Lista<VerticeGrafica<Casilla>> trajectoriaPMinimo = reducida.dijkstra(laberinto.getEntrada(), laberinto.getSalida());
+        Casilla anterior = null;
         for (VerticeGrafica<Casilla> casilla : trajectoriaPMinimo) {
+            if (anterior != null)
+                for (Casilla interior : corredores.get(anterior).get(casilla.get()))
+                    dijkstra.agrega(interior);
             dijkstra.agrega(casilla.get());
+            anterior = casilla.get();
         }
         if (dijkstra.esVacia()){
             System.err.println("Archivo invalido: Laberinto sin solucion.");
@@ -56,6 +69,16 @@ public class GraficaLaberinto {
         return lGrafica;
     }
 
+    /**
+     * Regresa la grafica reducida del laberinto, en la que solo quedan las
+     * bifurcaciones, la entrada y la salida; cada corredor entre ellas es una
+     * sola arista con el peso total del corredor.
+     * @return la grafica reducida del laberinto.
+     */
+    public Grafica<Casilla> getGraficaReducida(){
+        return reducida;
+    }
+
     /** 
      * Conecta las casillas dependiendo de su puerta
      */
@@ -83,6 +106,114 @@ public class GraficaLaberinto {
         } 
     }
 
+    /**
+     * Construye la grafica reducida. Primero poda iterativamente los callejones
+     * sin salida que no son la entrada ni la salida, y despues contrae cada
+     * corredor (cadena de casillas con dos puertas) en una sola arista.
+     */
+    private void reduceGrafica(){
+        Diccionario<Casilla, Lista<Casilla>> vecinos = new Diccionario<>(lGrafica.getElementos());
+        lGrafica.paraCadaVertice(v -> {
+            Lista<Casilla> adyacentes = new Lista<>();
+            for (VerticeGrafica<Casilla> vecino : v.vecinos())
+                adyacentes.agrega(vecino.get());
+            vecinos.agrega(v.get(), adyacentes);
+        });
+        podaCallejones(vecinos);
+        contraeCorredores(vecinos);
+    }
+
+    /**
+     * Elimina los callejones sin salida, repitiendo mientras la poda genere
+     * nuevos callejones.
+     * @param vecinos las adyacencias de cada casilla, se modifican.
+     */
+    private void podaCallejones(Diccionario<Casilla, Lista<Casilla>> vecinos){
+        Cola<Casilla> callejones = new Cola<>();
+        Iterator<Casilla> iterador = vecinos.iteradorLlaves();
+        while (iterador.hasNext()){
+            Casilla casilla = iterador.next();
+            if (esCallejon(casilla, vecinos))
+                callejones.mete(casilla);
+        }
+        while (!callejones.esVacia()){
+            Casilla callejon = callejones.saca();
+            if (!vecinos.contiene(callejon))
+                continue;
+            for (Casilla vecino : vecinos.get(callejon)){
+                vecinos.get(vecino).elimina(callejon);
+                if (esCallejon(vecino, vecinos))
+                    callejones.mete(vecino);
+            }
+            vecinos.elimina(callejon);
+        }
+    }
+
+    /**
+     * Contrae cada corredor entre dos nodos de la grafica reducida en una
+     * arista, recordando las casillas interiores del corredor. Si dos
+     * corredores unen a los mismos nodos se conserva el de menor peso, y los
+     * corredores que regresan a su mismo nodo se descartan.
+     * @param vecinos las adyacencias de cada casilla despues de la poda.
+     */
+    private void contraeCorredores(Diccionario<Casilla, Lista<Casilla>> vecinos){
+        reducida = new Grafica<>();
+        corredores = new Diccionario<>();
+        Iterator<Casilla> iterador = vecinos.iteradorLlaves();
+        while (iterador.hasNext()){
+            Casilla casilla = iterador.next();
+            if (esNodo(casilla, vecinos)){
+                reducida.agrega(casilla);
+                corredores.agrega(casilla, new Diccionario<>());
+            }
+        }
+        for (Casilla nodo : reducida)
+            for (Casilla siguiente : vecinos.get(nodo)){
+                Lista<Casilla> interior = new Lista<>();
+                Casilla anterior = nodo, actual = siguiente;
+                double peso = peso(nodo, siguiente);
+                while (!esNodo(actual, vecinos)){
+                    interior.agrega(actual);
+                    Casilla proxima = vecinos.get(actual).getPrimero();
+                    if (proxima == anterior)
+                        proxima = vecinos.get(actual).getUltimo();
+                    peso += peso(actual, proxima);
+                    anterior = actual;
+                    actual = proxima;
+                }
+                if (actual == nodo)
+                    continue;
+                if (!reducida.sonVecinos(nodo, actual))
+                    reducida.conecta(nodo, actual, peso);
+                else if (peso < reducida.getPeso(nodo, actual))
+                    reducida.setPeso(nodo, actual, peso);
+                else
+                    continue;
+                corredores.get(nodo).agrega(actual, interior);
+                corredores.get(actual).agrega(nodo, interior.reversa());
+            }
+    }
+
+    /* Nos dice si la casilla es un callejon que se puede podar */
+    private boolean esCallejon(Casilla casilla, Diccionario<Casilla, Lista<Casilla>> vecinos){
+        return !casilla.esEntrada() && !casilla.esSalida() && vecinos.get(casilla).getLongitud() < 2;
+    }
+
+    /* Nos dice si la casilla queda como nodo en la grafica reducida */
+    private boolean esNodo(Casilla casilla, Diccionario<Casilla, Lista<Casilla>> vecinos){
+        return casilla.esEntrada() || casilla.esSalida() || vecinos.get(casilla).getLongitud() != 2;
+    }
+
+    /**
+     * Regresa el peso de la arista entre dos casillas consecutivas.
+     * @param a la primera casilla.
+     * @param b la segunda casilla.
+     * @return el peso de la arista entre las casillas.
+     */
+    static int peso(Casilla a, Casilla b){
+        return a.getPuntaje() + b.getPuntaje() + 1;
+    }
+
     /**
      * Dada una casilla, obtiene todos sus vecinos de acuerdo a la puerta que tenga abierta
      * @param casilla la casilla a obtener los vecinos
@@ -140,7 +271,7 @@ public class GraficaLaberinto {
     private void nuevaArista(Casilla actual){
         Casilla anterior = actual.getAnterior();
         int[] coor = actual.getCoordenadas(), bcoor = anterior.getCoordenadas();
-        int peso = actual.getPuntaje() + anterior.getPuntaje() + 1;
+        int peso = peso(actual, anterior);
         if (coor[0] == bcoor[0]){
             if ((actual.getPuerta() & 13) == actual.getPuerta() && (anterior.getPuerta() & 7) == anterior.getPuerta())
                 lGrafica.conecta(actual, anterior, peso);
@@ -62,7 +62,7 @@ public class Laberinto {
          * @return el puntaje de la casilla
          */
         public int getPuntaje(){
-            return puntaje >>> 4;
+            return (puntaje & 0xFF) >>> 4;
         }
 
         /**
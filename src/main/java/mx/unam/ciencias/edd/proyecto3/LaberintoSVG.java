@@ -1,5 +1,9 @@
 package mx.unam.ciencias.edd.proyecto3;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import mx.unam.ciencias.edd.Lista;
 import mx.unam.ciencias.edd.proyecto3.Laberinto.Casilla;
 
@@ -7,7 +11,15 @@ import mx.unam.ciencias.edd.proyecto3.Laberinto.Casilla;
  * Clase que genera un svg que represente al laberinto
  */
 public class LaberintoSVG {
-    
+
+    /* Los pedazos fijos del codigo, ya en bytes */
+    private static final byte[] LINEA_X1 = FragmentosSVG.bytes("\t<line x1='");
+    private static final byte[] LINEA_Y1 = FragmentosSVG.bytes("' y1='");
+    private static final byte[] LINEA_X2 = FragmentosSVG.bytes("' x2='");
+    private static final byte[] LINEA_Y2 = FragmentosSVG.bytes("' y2='");
+    private static final byte[] MURO = FragmentosSVG.bytes("' stroke='black' stroke-width='5' />\n");
+    private static final byte[] SOLUCION = FragmentosSVG.bytes("' stroke='deeppink' stroke-width='5' />\n");
+
     /* La lista de casillas del laberinto */
     Lista<Casilla> laberinto;
     /* La lista de casillas que forman la solucion */
@@ -34,127 +46,99 @@ public class LaberintoSVG {
      * @return el codigo svg que grafica el laberinto.
      */
     public String svg(){
-        String svg = "";
-        svg += inicio();
-        svg += empezarGraficar(w, h);
+        ByteArrayOutputStream flujo = new ByteArrayOutputStream();
+        try{
+            escribe(flujo);
+        } catch (IOException ioe){
+            /* Un ByteArrayOutputStream no lanza IOException */
+        }
+        return new String(flujo.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Escribe el codigo svg del laberinto en una salida, conforme se genera;
+     * no vacia ni cierra la salida.
+     * @param flujo la salida.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(OutputStream flujo) throws IOException {
+        EscritorBytes escritor = new EscritorBytes(flujo);
+        FragmentosSVG.encabezado(w, h, false, escritor);
+        escritor.escribe(FragmentosSVG.GRUPO);
         for (Casilla casilla : laberinto)
-            svg += casilla(casilla);
-        for (Casilla casilla2 : solucion) 
-            svg += solucion(casilla2);
+            casilla(casilla, escritor);
+        for (Casilla casilla2 : solucion)
+            solucion(casilla2, escritor);
         int coorXentrada = 40 + (40*entrada[0]);
         int coorYentrada = 40 + (40*entrada[1]);
         int coorXsalida = 40 + (40*salida[0]);
         int coorYsalida = 40 + (40*salida[1]);
-        svg += punto(coorXentrada, coorYentrada, "mediumspringgreen");
-        svg += punto(coorXsalida, coorYsalida, "maroon");
-        svg += cierre();
-        return svg;
+        FragmentosSVG.punto(coorXentrada, coorYentrada, FragmentosSVG.ENTRADA, escritor);
+        FragmentosSVG.punto(coorXsalida, coorYsalida, FragmentosSVG.SALIDA, escritor);
+        escritor.escribe(FragmentosSVG.CIERRE);
+        escritor.vacia();
     }
 
     /**
-     * Regresa el codigo svg de una casilla del laberinto
+     * Escribe el codigo svg de una casilla del laberinto
      * @param casilla la casilla a graficar
-     * @return  el codigo svg de una casilla del laberinto
+     * @param escritor a donde se escribe
+     * @throws IOException si ocurre un error al escribir.
      */
-    private String casilla(Casilla casilla){
-        String puertas = "";
+    private void casilla(Casilla casilla, EscritorBytes escritor) throws IOException {
         int constante = 40;
         int coorX = 20 + (constante*casilla.getCoordenadas()[0]);
         int coorY = 20 + (constante*casilla.getCoordenadas()[1]);
         if (casilla.getTipoCasilla() == TipoCasilla.ESQUINA_DER_N || casilla.getTipoCasilla() == TipoCasilla.LATERAL_ESTE || casilla.getTipoCasilla() == TipoCasilla.ESQUINA_DER_SUR)
             if ((casilla.getPuerta() | 1) == casilla.getPuerta())
-                puertas += linea(coorX+constante, coorY, coorX+constante, coorY+constante);
+                linea(coorX+constante, coorY, coorX+constante, coorY+constante, MURO, escritor);
         if ((casilla.getPuerta() | 2) == casilla.getPuerta())
-            puertas += linea(coorX, coorY, coorX+constante, coorY);
+            linea(coorX, coorY, coorX+constante, coorY, MURO, escritor);
         if ((casilla.getPuerta() | 4) == casilla.getPuerta())
-            puertas += linea(coorX, coorY, coorX, coorY+constante);
+            linea(coorX, coorY, coorX, coorY+constante, MURO, escritor);
         if (casilla.getTipoCasilla() == TipoCasilla.ESQUINA_DER_SUR || casilla.getTipoCasilla() == TipoCasilla.LATERAL_SUR || casilla.getTipoCasilla() == TipoCasilla.ESQUINA_IZQ_SUR)
             if ((casilla.getPuerta() | 8) == casilla.getPuerta())
-                puertas += linea(coorX, coorY+constante, coorX+constante, coorY+constante);
-        return puertas;
+                linea(coorX, coorY+constante, coorX+constante, coorY+constante, MURO, escritor);
     }
 
     /**
-     * Regresa el codigo svg de la solucion al laberinto
+     * Escribe el codigo svg de la solucion al laberinto
      * @param casilla la casilla que froma parte de la soolucion
-     * @return la solucion del laberinto en svg
+     * @param escritor a donde se escribe
+     * @throws IOException si ocurre un error al escribir.
      */
-    private String solucion(Casilla casilla){
-        String solucion = "";
+    private void solucion(Casilla casilla, EscritorBytes escritor) throws IOException {
         int constante = 40;
         int coorX = 40 + (constante*casilla.getCoordenadas()[0]);
         int coorY = 40 + (constante*casilla.getCoordenadas()[1]);
         if (casilla.getAnterior() == null)
-            return solucion;
+            return;
         int coorXB = 40 + (constante*casilla.getAnterior().getCoordenadas()[0]);
         int coorYB = 40 + (constante*casilla.getAnterior().getCoordenadas()[1]);
-        solucion += lineaSolucion(coorX, coorY, coorXB, coorYB);
-        return solucion;
-    }
-
-    /**
-     * Regresa, en forma de codigo, una linea que representara un muro de la casilla.
-     * @param inicioX la coordenada en el eje X de donde empieza.
-     * @param inicioY la coordenada en el eje Y de donde empieza.
-     * @param finalX la coordenada en el eje X de donde termina.
-     * @param finalY la coordenada en el eje Y de donde termina.
-     * @return una linea que representa un muro.
-     */
-    private String linea(int inicioX, int inicioY, int finalX, int finalY){
-        return String.format("\t<line x1='%s' y1='%s' x2='%s' y2='%s' stroke='black' stroke-width='5' />\n"
-                            , inicioX, inicioY, finalX, finalY);
+        linea(coorX, coorY, coorXB, coorYB, SOLUCION, escritor);
     }
 
     /**
-     * Regresa, en forma de codigo, una linea que sera parte de la solucion al laberinto.
+     * Escribe, en forma de codigo, una linea que representa un muro de la
+     * casilla o una parte de la solucion al laberinto.
      * @param inicioX la coordenada en el eje X de donde empieza.
      * @param inicioY la coordenada en el eje Y de donde empieza.
      * @param finalX la coordenada en el eje X de donde termina.
      * @param finalY la coordenada en el eje Y de donde termina.
-     * @return una linea que representa la solucion al laberinto.
-     */
-    private String lineaSolucion(int inicioX, int inicioY, int finalX, int finalY){
-        return String.format("\t<line x1='%s' y1='%s' x2='%s' y2='%s' stroke='deeppink' stroke-width='5' />\n"
-                            , inicioX, inicioY, finalX, finalY);
-    }
-    /**
-     * Regresa, en forma de codigo , la representación grafica de un vertice.
-     * @param coordenadaX coordenada en el eje X del centro del vertice.
-     * @param coordenadaY coordenada en el eje Y del centro del vertice.
-     * @param v el vertice a graficar.
-     * @param color el color del vertice.
-     * @param letra el color de la letra.
-     * @return la representación grafica de un vertice.
-     */
-    private String punto(int coordenadaX, int coordenadaY, String color){
-        String vertice = String.format("\t<circle cx='%s' cy='%s' r='10' stroke='%s' stroke-width='1' fill='%s' /> \n", 
-                                        coordenadaX, coordenadaY, color, color);
-        return vertice;
-}
-
-        /** 
-     * Regresa el codigo para iniciar la graficación.
-     * @return el codigo para inicial la graficación.
-     */
-    private static String inicio(){
-        return "<?xml version='1.0' encoding='UTF-8' ?>\n";
-    }
-
-    /**
-     * Regresa el codigo para terminar el codigo.
-     * @return el codigo para terminar el codigo.
-     */
-    private static String cierre(){
-        return "\t</g> \n</svg>";
-    }
-
-    /**
-     * Regresa el codigo para darle el tamaño necesario para empezar a graficar.
-     * @param ancho el ancho de la imagen.
-     * @param altura la altura de la imagen.
-     * @return el codigo para darle el tamaño necesario para empezar a graficar.
+     * @param cola el final de la linea, con su color.
+     * @param escritor a donde se escribe
+     * @throws IOException si ocurre un error al escribir.
      */
-    private static String empezarGraficar(int ancho, int altura){
-        return String.format("<svg width='%s' height='%s'>\n \t<g>\n", ancho, altura);
+    private static void linea(int inicioX, int inicioY, int finalX, int finalY,
+                              byte[] cola, EscritorBytes escritor) throws IOException {
+        escritor.escribe(LINEA_X1);
+        escritor.escribeNumero(inicioX);
+        escritor.escribe(LINEA_Y1);
+        escritor.escribeNumero(inicioY);
+        escritor.escribe(LINEA_X2);
+        escritor.escribeNumero(finalX);
+        escritor.escribe(LINEA_Y2);
+        escritor.escribeNumero(finalY);
+        escritor.escribe(cola);
     }
 }
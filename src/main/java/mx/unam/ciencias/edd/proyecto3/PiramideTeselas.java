@@ -0,0 +1,268 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+
+/**
+ * Clase que genera una piramide de teselas del laberinto para un visor con
+ * acercamiento: imagenes PNG de {@link #TESELA} pixeles de lado en varios
+ * niveles. En el nivel mas alto cada casilla mide el lado pedido en pixeles,
+ * y en cada nivel hacia abajo mide la mitad, hasta el nivel 0, en el que
+ * todo el laberinto cabe en una tesela. Mientras una casilla mide al menos
+ * dos pixeles se dibuja con {@link RasterLaberinto}; abajo de eso cada pixel
+ * junta varias casillas y su tono sale de cuantas paredes tienen (o del
+ * color de la solucion, la entrada o la salida si alguna cae en el). Cada
+ * tesela se dibuja solo con la region de casillas que cubre, leida del
+ * laberinto mapeado a memoria con {@link RegionLaberinto}, y las teselas se
+ * generan en paralelo. Las teselas quedan en
+ * <code>directorio/nivel/columna_renglon.png</code>.
+ */
+public class PiramideTeselas {
+
+    /** El lado de una tesela en pixeles. */
+    public static final int TESELA = 256;
+
+    /* Colores de los pixeles que juntan varias casillas */
+    private static final int SOLUCION = 0xFF1493;
+    private static final int ENTRADA = 0x00FA9A;
+    private static final int SALIDA = 0x800000;
+
+    /* Los bytes del laberinto */
+    private ByteBuffer bytes;
+    /* El ancho y la altura del laberinto */
+    private int ancho, alto;
+    /* El lado de una casilla en el nivel mas alto */
+    private int lado;
+    /* El nivel mas alto */
+    private int maximo;
+    /* Los enlaces de la solucion de cada casilla, o null si no hay solucion */
+    private byte[] solucion;
+    /* La entrada y la salida, o -1 si no hay solucion */
+    private int entrada = -1, salida = -1;
+
+    /**
+     * Prepara la piramide de un laberinto, normal o comprimido; calcula su
+     * solucion una sola vez.
+     * @param bytes los bytes del laberinto, por ejemplo mapeados a memoria.
+     * @param lado el lado de una casilla en pixeles en el nivel mas alto;
+     *        debe ser una potencia de dos, al menos 2.
+     * @throws IllegalArgumentException si los bytes no son un laberinto o el
+     *         lado no es una potencia de dos.
+     */
+    public PiramideTeselas(ByteBuffer bytes, int lado){
+        if (lado < 2 || Integer.bitCount(lado) != 1)
+            throw new IllegalArgumentException("El lado de una casilla debe ser una potencia de dos");
+        this.bytes = bytes;
+        this.lado = lado;
+        RegionLaberinto esquina = RegionLaberinto.lee(bytes, 0, 0, 1, 1);
+        ancho = esquina.getAnchoTotal();
+        alto = esquina.getAltoTotal();
+        long pixeles = (long)Math.max(ancho, alto) * lado;
+        while ((pixeles >> maximo) > TESELA)
+            maximo++;
+        Cuadricula cuadricula = RegionLaberinto.lee(bytes, 0, 0, ancho, alto);
+        if (!new ComponentesLaberinto(cuadricula).tieneSolucion())
+            return;
+        int[] trayectoria = new DistanciasLaberinto(cuadricula).trayectoria(cuadricula.huecos()[1]);
+        solucion = RasterLaberinto.enlaces(trayectoria, ancho * alto);
+        entrada = trayectoria[0];
+        salida = trayectoria[trayectoria.length - 1];
+    }
+
+    /**
+     * Regresa el numero de niveles de la piramide.
+     * @return el numero de niveles de la piramide.
+     */
+    public int getNiveles(){
+        return maximo + 1;
+    }
+
+    /**
+     * Regresa el ancho en pixeles de la imagen completa de un nivel.
+     * @param nivel el nivel.
+     * @return el ancho de la imagen del nivel.
+     */
+    public int getAnchoImagen(int nivel){
+        return dimension(ancho, nivel);
+    }
+
+    /**
+     * Regresa la altura en pixeles de la imagen completa de un nivel.
+     * @param nivel el nivel.
+     * @return la altura de la imagen del nivel.
+     */
+    public int getAltoImagen(int nivel){
+        return dimension(alto, nivel);
+    }
+
+    /**
+     * Regresa el numero de columnas de teselas de un nivel.
+     * @param nivel el nivel.
+     * @return el numero de columnas de teselas del nivel.
+     */
+    public int getColumnas(int nivel){
+        return (getAnchoImagen(nivel) + TESELA - 1) / TESELA;
+    }
+
+    /**
+     * Regresa el numero de renglones de teselas de un nivel.
+     * @param nivel el nivel.
+     * @return el numero de renglones de teselas del nivel.
+     */
+    public int getRenglones(int nivel){
+        return (getAltoImagen(nivel) + TESELA - 1) / TESELA;
+    }
+
+    /**
+     * Dibuja una tesela; las del borde derecho y de abajo pueden ser mas
+     * chicas.
+     * @param nivel el nivel.
+     * @param columna la columna de la tesela.
+     * @param renglon el renglon de la tesela.
+     * @return la imagen de la tesela.
+     * @throws IndexOutOfBoundsException si la tesela no existe.
+     */
+    public BufferedImage tesela(int nivel, int columna, int renglon){
+        if (nivel < 0 || nivel > maximo || columna < 0 || columna >= getColumnas(nivel) ||
+            renglon < 0 || renglon >= getRenglones(nivel))
+            throw new IndexOutOfBoundsException("No hay tesela " + nivel + "/" + columna + "_" + renglon);
+        int x0 = columna * TESELA, y0 = renglon * TESELA;
+        int x1 = Math.min(x0 + TESELA, getAnchoImagen(nivel));
+        int y1 = Math.min(y0 + TESELA, getAltoImagen(nivel));
+        BufferedImage imagen = new BufferedImage(x1 - x0, y1 - y0, BufferedImage.TYPE_INT_RGB);
+        int l = lado >> (maximo - nivel);
+        if (l >= 2)
+            dibuja(imagen, l, x0, y0);
+        else
+            junta(imagen, 1 << (maximo - nivel) >> Integer.numberOfTrailingZeros(lado), x0, y0);
+        return imagen;
+    }
+
+    /**
+     * Genera todas las teselas en paralelo y las escribe en un directorio.
+     * @param directorio el directorio; se crean los subdirectorios de los
+     *        niveles.
+     * @param alberca la alberca de hilos que genera las teselas.
+     * @throws IOException si ocurre un error al escribir una tesela.
+     */
+    public void escribe(File directorio, ExecutorService alberca) throws IOException {
+        List<Callable<Void>> tareas = new ArrayList<>();
+        for (int nivel = 0; nivel <= maximo; nivel++){
+            File carpeta = new File(directorio, String.valueOf(nivel));
+            if (!carpeta.isDirectory() && !carpeta.mkdirs())
+                throw new IOException("No se pudo crear el directorio " + carpeta);
+            for (int columna = 0; columna < getColumnas(nivel); columna++)
+                for (int renglon = 0; renglon < getRenglones(nivel); renglon++){
+                    int n = nivel, c = columna, r = renglon;
+                    tareas.add(() -> {
+                            File archivo = new File(carpeta, c + "_" + r + ".png");
+                            if (!ImageIO.write(tesela(n, c, r), "png", archivo))
+                                throw new IOException("No hay quien escriba PNG");
+                            return null;
+                        });
+                }
+        }
+        try {
+            for (Future<Void> tarea : alberca.invokeAll(tareas))
+                tarea.get();
+        } catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw new IOException("Se interrumpio la generacion de las teselas");
+        } catch (ExecutionException ee){
+            if (ee.getCause() instanceof IOException)
+                throw (IOException)ee.getCause();
+            throw new IOException(ee.getCause());
+        }
+    }
+
+    /* Dibuja una tesela de un nivel en el que una casilla mide l pixeles,
+     * con la region de casillas que la cubre y una casilla mas de cada lado
+     * para que se vean los pedazos de solucion que entran de las vecinas */
+    private void dibuja(BufferedImage imagen, int l, int x0, int y0){
+        int w = imagen.getWidth(), h = imagen.getHeight();
+        int rx0 = Math.max(0, x0 / l - 1), ry0 = Math.max(0, y0 / l - 1);
+        int rx1 = Math.min(ancho, (x0 + w + l - 1) / l + 1);
+        int ry1 = Math.min(alto, (y0 + h + l - 1) / l + 1);
+        RegionLaberinto region = RegionLaberinto.lee(bytes, rx0, ry0, rx1 - rx0, ry1 - ry0);
+        byte[] local = null;
+        if (solucion != null){
+            local = new byte[region.getAncho() * region.getAlto()];
+            for (int y = ry0; y < ry1; y++)
+                System.arraycopy(solucion, y * ancho + rx0, local, (y - ry0) * region.getAncho(), region.getAncho());
+        }
+        RasterLaberinto raster = new RasterLaberinto(region, local, local(entrada, rx0, ry0, rx1, ry1),
+                                                     local(salida, rx0, ry0, rx1, ry1), l, true);
+        byte[] linea = new byte[3 * raster.getAnchoImagen()];
+        int[] pixeles = new int[w];
+        int dx = x0 - rx0 * l;
+        for (int py = 0; py < h; py++){
+            raster.linea(y0 + py - ry0 * l, linea);
+            for (int px = 0; px < w; px++){
+                int i = 3 * (dx + px);
+                pixeles[px] = ((linea[i] & 0xFF) << 16) | ((linea[i+1] & 0xFF) << 8) | (linea[i+2] & 0xFF);
+            }
+            imagen.setRGB(0, py, w, 1, pixeles, 0, w);
+        }
+    }
+
+    /* Dibuja una tesela de un nivel en el que cada pixel junta k por k
+     * casillas */
+    private void junta(BufferedImage imagen, int k, int x0, int y0){
+        int w = imagen.getWidth(), h = imagen.getHeight();
+        int rx0 = x0 * k, ry0 = y0 * k;
+        int rx1 = Math.min(ancho, (x0 + w) * k), ry1 = Math.min(alto, (y0 + h) * k);
+        RegionLaberinto region = RegionLaberinto.lee(bytes, rx0, ry0, rx1 - rx0, ry1 - ry0);
+        int[] pixeles = new int[w];
+        for (int py = 0; py < h; py++){
+            for (int px = 0; px < w; px++){
+                int paredes = 0, casillas = 0, color = -1;
+                for (int y = (y0 + py) * k; y < Math.min((y0 + py + 1) * k, alto); y++)
+                    for (int x = (x0 + px) * k; x < Math.min((x0 + px + 1) * k, ancho); x++){
+                        int c = region.getCasilla(x - rx0, y - ry0);
+                        paredes += ((c >> 1) & 1) + ((c >> 2) & 1);
+                        casillas++;
+                        int i = y * ancho + x;
+                        if (i == entrada)
+                            color = ENTRADA;
+                        else if (i == salida && color != ENTRADA)
+                            color = SALIDA;
+                        else if (solucion != null && solucion[i] != 0 && color == -1)
+                            color = SOLUCION;
+                    }
+                if (color == -1){
+                    int gris = casillas == 0 ? 255 : 255 - 255 * paredes / (2 * casillas);
+                    color = (gris << 16) | (gris << 8) | gris;
+                }
+                pixeles[px] = color;
+            }
+            imagen.setRGB(0, py, w, 1, pixeles, 0, w);
+        }
+    }
+
+    /* Regresa la dimension en pixeles de un lado del laberinto en un nivel */
+    private int dimension(int casillas, int nivel){
+        int l = lado >> (maximo - nivel);
+        if (l >= 2)
+            return casillas * l + Math.max(1, l / 8);
+        int k = 1 << (maximo - nivel) >> Integer.numberOfTrailingZeros(lado);
+        return (casillas + k - 1) / k;
+    }
+
+    /* Pasa una casilla del laberinto a la region, o -1 si no esta en ella */
+    private int local(int casilla, int rx0, int ry0, int rx1, int ry1){
+        if (casilla < 0)
+            return -1;
+        int x = casilla % ancho, y = casilla / ancho;
+        if (x < rx0 || x >= rx1 || y < ry0 || y >= ry1)
+            return -1;
+        return (y - ry0) * (rx1 - rx0) + (x - rx0);
+    }
+}
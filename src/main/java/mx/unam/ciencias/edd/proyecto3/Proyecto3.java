@@ -1,6 +1,15 @@
 package mx.unam.ciencias.edd.proyecto3;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import mx.unam.ciencias.edd.Lista;
 
 /** 
@@ -19,18 +28,69 @@ public class Proyecto3 {
     }
 
     private static void uso(){
-        System.err.println("Uso:\n java -jar target/proyecto3 -g -w N -h N\n java -jar target/proyecto3 -g s N -w N -h N");
+        System.err.println("Uso:\n java -jar target/proyecto3 -g -w N -h N\n java -jar target/proyecto3 -g s N -w N -h N\n La bandera \"-c\" escribe el laberinto comprimido.\n La bandera \"-a archivo\" agrega el laberinto a un archivo de laberintos, y \"-n N\" genera N laberintos con semillas consecutivas.");
         System.exit(1);
     }
+
+    private static void usoConsultas(){
+        System.err.println("Uso: java -jar target/proyecto3 -q laberinto [-r] [consultas]\n La bandera \"-r\" agrega la trayectoria a cada respuesta.");
+        System.exit(1);
+    }
+    private static void usoExtraccion(){
+        System.err.println("Uso: java -jar target/proyecto3 -e archivo id\n Escribe en la salida estandar el laberinto con ese identificador.");
+        System.exit(1);
+    }
+
+    private static void usoDibujo(){
+        System.err.println("Uso: java -jar target/proyecto3 -o formato [-j hilos] [-t lado] [-z nivel] < laberinto\n Los formatos son \"svg\" (una linea por pared), \"trazos\" (las paredes seguidas juntas en un solo trazo), \"simbolos\" (un simbolo por combinacion de paredes y un use por casilla), \"pgm\" (imagen en gris), \"ppm\" (imagen a color), \"calor\" (imagen a color con la distancia de cada casilla a la entrada) y \"distancias\" (mapa binario de las distancias a la entrada).\n La bandera \"-t\" es el lado en pixeles de una casilla en las imagenes (8 por omision).\n La bandera \"-j\" dice cuantos hilos generan el dibujo por franjas de renglones.\n La bandera \"-z nivel\" comprime la salida con gzip (svgz) con un nivel de 1 a 9; con varios hilos cada franja se comprime en su hilo.");
+        System.exit(1);
+    }
+
+    private static void usoTeselas(){
+        System.err.println("Uso: java -jar target/proyecto3 -m laberinto directorio [-j hilos] [-t lado]\n Escribe una piramide de teselas PNG en directorio/nivel/columna_renglon.png.\n La bandera \"-t\" es el lado en pixeles de una casilla en el nivel mas alto, una potencia de dos (16 por omision).\n La bandera \"-j\" dice cuantos hilos generan las teselas.");
+        System.exit(1);
+    }
+
+    private static void usoValidacion(){
+        System.err.println("Uso: java -jar target/proyecto3 -v laberinto [franjas]\n Valida el laberinto por franjas de renglones en paralelo.");
+        System.exit(1);
+    }
+
     public static void main(String[] args){
         /* Lectura del archivo */
         if (args.length == 0){
             leerArchivo();
             return;
         }
+        /* Consultas sobre un laberinto */
+        if (args[0].equals("-q")){
+            consultas(args);
+            return;
+        }
+        /* Dibujar un laberinto en otro formato */
+        if (args[0].equals("-o")){
+            dibuja(args);
+            return;
+        }
+        /* Validar un laberinto */
+        if (args[0].equals("-v")){
+            valida(args);
+            return;
+        }
+        /* Extraer un laberinto de un archivo de laberintos */
+        if (args[0].equals("-e")){
+            extrae(args);
+            return;
+        }
+        /* Generar la piramide de teselas de un laberinto */
+        if (args[0].equals("-m")){
+            teselas(args);
+            return;
+        }
         /* Generar laberinto */
-        String s = null, w = null, h = null;
+        String s = null, w = null, h = null, a = null, n = null;
         Boolean banderaG = false;
+        boolean comprimido = false;
         try{
             for (int i = 0; i < args.length; i++){
                 switch (args[i]) {
@@ -43,11 +103,19 @@ public class Proyecto3 {
                     case "-h":
                         h = args[i+1];
                         break;
+                    case "-a":
+                        a = args[i+1];
+                        break;
+                    case "-n":
+                        n = args[i+1];
+                        break;
                     default:
                         break;
             }
             if (args[i].equals("-g"))
                 banderaG = true;
+            if (args[i].equals("-c"))
+                comprimido = true;
             }
         } catch (IndexOutOfBoundsException iobe){
             usoNumeros();
@@ -57,10 +125,12 @@ public class Proyecto3 {
         if(w == null || h == null)
             uso();
         long semilla = System.currentTimeMillis();
-        int columnas = 0, renglones = 0;
+        int columnas = 0, renglones = 0, laberintos = 1;
         try{
             if (s != null)
                 semilla = Integer.parseInt(s);
+            if (n != null)
+                laberintos = Integer.parseInt(n);
             columnas = Integer.parseInt(w);
             renglones = Integer.parseInt(h);
         } catch(NumberFormatException nfe){
@@ -72,25 +142,320 @@ public class Proyecto3 {
             System.exit(1);
         }
 
+        if (a != null){
+            agrega(a, columnas, renglones, semilla, laberintos, comprimido);
+            return;
+        }
         GenerarArchivo archivo = new GenerarArchivo(columnas, renglones, semilla);
-        archivo.creaArchivo();
+        archivo.creaArchivo(comprimido);
+    }
+
+    /* Genera laberintos con semillas consecutivas y los agrega a un archivo de laberintos */
+    private static void agrega(String ruta, int columnas, int renglones, long semilla, int laberintos, boolean comprimido){
+        try (EscritorArchivoLaberintos escritor = new EscritorArchivoLaberintos(ruta)){
+            for (int i = 0; i < laberintos; i++){
+                GenerarArchivo archivo = new GenerarArchivo(columnas, renglones, semilla + i);
+                System.out.println(archivo.agregaA(escritor, comprimido));
+            }
+        } catch (IllegalArgumentException iae){
+            System.err.println(iae.getMessage());
+            System.exit(1);
+        } catch (IOException ioe){
+            System.err.println("Ocurrio un error al escribir en el archivo " + ruta);
+            System.exit(1);
+        }
+    }
+
+    /* Escribe en la salida estandar un laberinto de un archivo de laberintos */
+    private static void extrae(String[] args){
+        if (args.length != 3)
+            usoExtraccion();
+        int id = 0;
+        try{
+            id = Integer.parseInt(args[2]);
+        } catch (NumberFormatException nfe){
+            usoExtraccion();
+        }
+        try (ArchivoLaberintos archivo = new ArchivoLaberintos(args[1])){
+            byte[] bytes = archivo.bytes(id);
+            System.out.write(bytes, 0, bytes.length);
+            System.out.flush();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e){
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException ioe){
+            System.err.println("No se pudo abrir el archivo " + args[1]);
+            System.exit(1);
+        }
     }
 
     /* Metodo auxiliar para leer uin archivo por bytes */
     private static void leerArchivo(){
+        leerArchivo(System.out);
+    }
+
+    /* Lee el laberinto de la entrada estandar y escribe su svg en una salida */
+    private static void leerArchivo(OutputStream flujo){
+        byte[] bytes = leerArreglo(System.in);
+        verificaSolucion(new Cuadricula(bytes));
+        GeneradorSVG svg = new GeneradorSVG(lista(bytes));
+        svg.ejecuta(flujo);
+    }
+
+    /* Rechaza el archivo si no tiene solucion o si tiene casillas a las que
+     * no se llega desde la entrada, en una pasada y antes de construir la grafica */
+    private static void verificaSolucion(Cuadricula cuadricula){
+        ComponentesLaberinto componentes = new ComponentesLaberinto(cuadricula);
+        if (!componentes.tieneSolucion()){
+            System.err.println("Archivo invalido: Laberinto sin solucion.");
+            System.exit(1);
+        }
+        if (componentes.getComponentes() != 1){
+            System.err.println("Archivo invalido: Laberinto con casillas inaccesibles.");
+            System.exit(1);
+        }
+    }
+
+    /* Metodo auxiliar que lee todos los bytes de una entrada a una lista */
+    private static Lista<Integer> leerBytes(InputStream entrada){
+        return lista(leerArreglo(entrada));
+    }
+
+    /* Metodo auxiliar que pasa los bytes de un archivo a una lista */
+    private static Lista<Integer> lista(byte[] bytes){
         Lista<Integer> numeros = new Lista<>();
+        for (byte b : bytes)
+            numeros.agrega(b & 0xFF);
+        return numeros;
+    }
+
+    /* Metodo auxiliar que lee todos los bytes de una entrada, validandolos
+     * mientras llegan; si la entrada es un contenedor comprimido, lo
+     * descomprime por bloques conforme se lee */
+    private static byte[] leerArreglo(InputStream entrada){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ValidadorLaberinto validador = new ValidadorLaberinto();
         try{
-            BufferedInputStream out = new BufferedInputStream(System.in);
+            entrada = new BufferedInputStream(entrada);
+            entrada.mark(4);
+            byte[] magia = new byte[4];
+            int leidos = 0, k;
+            while (leidos < 4 && (k = entrada.read(magia, leidos, 4 - leidos)) != -1)
+                leidos += k;
+            entrada.reset();
+            if (leidos == 4 && ContenedorComprimido.esComprimido(magia))
+                entrada = ContenedorComprimido.lector(entrada);
+            byte[] buffer = new byte[1 << 16];
             int n;
-            while ((n = out.read()) != -1){
-                numeros.agrega(n);
+            while ((n = entrada.read(buffer)) != -1){
+                if (!validador.agrega(buffer, 0, n))
+                    break;
+                bytes.write(buffer, 0, n);
             }
-            out.close();
+            entrada.close();
         } catch (IOException ioe){
             System.err.println("Ocurrio un error durante la lectura del archivo");
             System.exit(1);
         }
-        GeneradorSVG svg = new GeneradorSVG(numeros);
-        svg.ejecuta();
+        if (!validador.termina()){
+            System.err.println("Archivo invalido: " + validador.getError());
+            System.exit(1);
+        }
+        return bytes.toByteArray();
+    }
+
+    /* Dibuja el laberinto de la entrada estandar en el formato pedido */
+    private static void dibuja(String[] args){
+        if (args.length < 2)
+            usoDibujo();
+        int hilos = Runtime.getRuntime().availableProcessors(), lado = 8, nivel = 0;
+        try{
+            for (int i = 2; i < args.length; i++){
+                if (i + 1 == args.length)
+                    usoDibujo();
+                switch (args[i]){
+                    case "-j":
+                        hilos = Integer.parseInt(args[++i]);
+                        break;
+                    case "-t":
+                        lado = Integer.parseInt(args[++i]);
+                        break;
+                    case "-z":
+                        nivel = Integer.parseInt(args[++i]);
+                        if (nivel < 1 || nivel > 9)
+                            usoDibujo();
+                        break;
+                    default:
+                        usoDibujo();
+                }
+            }
+        } catch (NumberFormatException nfe){
+            usoDibujo();
+        }
+        if (hilos < 1 || lado < 2)
+            usoDibujo();
+        String formato = args[1];
+        if (!formato.equals("svg") && !formato.equals("trazos") && !formato.equals("simbolos") &&
+            !formato.equals("pgm") && !formato.equals("ppm") && !formato.equals("distancias") && !formato.equals("calor"))
+            usoDibujo();
+        SalidaGzip gzip = nivel > 0 ? new SalidaGzip(System.out, nivel) : null;
+        OutputStream salida = gzip != null ? gzip : System.out;
+        if (formato.equals("svg")){
+            leerArchivo(salida);
+            try{
+                if (gzip != null)
+                    gzip.termina();
+            } catch (IOException ioe){
+                System.err.println("Ocurrio un error al escribir el svg");
+                System.exit(1);
+            }
+            return;
+        }
+        Cuadricula cuadricula = new Cuadricula(leerArreglo(System.in));
+        verificaSolucion(cuadricula);
+        DistanciasLaberinto distancias = new DistanciasLaberinto(cuadricula);
+        int[] trayectoria = distancias.trayectoria(cuadricula.huecos()[1]);
+        ExecutorService alberca = hilos > 1 ? Executors.newFixedThreadPool(hilos) : null;
+        try{
+            EscritorFranjas franjas = new EscritorFranjas(alberca, 2 * hilos);
+            if (formato.equals("trazos")){
+                new TrazosSVG(cuadricula, trayectoria).escribe(salida, franjas);
+                salida.write(System.lineSeparator().getBytes(StandardCharsets.UTF_8));
+            } else if (formato.equals("simbolos")){
+                new SimbolosSVG(cuadricula, trayectoria).escribe(salida, franjas);
+                salida.write(System.lineSeparator().getBytes(StandardCharsets.UTF_8));
+            } else if (formato.equals("distancias")){
+                distancias.escribe(salida);
+            } else if (formato.equals("calor")){
+                RasterLaberinto raster = new RasterLaberinto(cuadricula, null, lado, true);
+                raster.setColores(distancias.colores());
+                raster.escribe(salida, franjas);
+            } else {
+                new RasterLaberinto(cuadricula, trayectoria, lado, formato.equals("ppm")).escribe(salida, franjas);
+            }
+            if (gzip != null)
+                gzip.termina();
+            System.out.flush();
+        } catch (IOException ioe){
+            System.err.println("Ocurrio un error al escribir el dibujo");
+            System.exit(1);
+        } finally {
+            if (alberca != null)
+                alberca.shutdown();
+        }
+    }
+
+    /* Escribe la piramide de teselas de un archivo de laberinto */
+    private static void teselas(String[] args){
+        if (args.length < 3)
+            usoTeselas();
+        int hilos = Runtime.getRuntime().availableProcessors(), lado = 16;
+        try{
+            for (int i = 3; i < args.length; i++){
+                if (i + 1 == args.length)
+                    usoTeselas();
+                switch (args[i]){
+                    case "-j":
+                        hilos = Integer.parseInt(args[++i]);
+                        break;
+                    case "-t":
+                        lado = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        usoTeselas();
+                }
+            }
+        } catch (NumberFormatException nfe){
+            usoTeselas();
+        }
+        if (hilos < 1 || lado < 2 || Integer.bitCount(lado) != 1)
+            usoTeselas();
+        System.setProperty("java.awt.headless", "true");
+        PiramideTeselas piramide = null;
+        try{
+            piramide = new PiramideTeselas(ValidadorFranjas.mapea(args[1]), lado);
+        } catch (IllegalArgumentException iae){
+            System.err.println("Archivo invalido: " + iae.getMessage());
+            System.exit(1);
+        } catch (IOException ioe){
+            System.err.println("No se pudo abrir el archivo " + args[1]);
+            System.exit(1);
+        }
+        ExecutorService alberca = Executors.newFixedThreadPool(hilos);
+        try{
+            piramide.escribe(new File(args[2]), alberca);
+        } catch (IOException ioe){
+            System.err.println("Ocurrio un error al escribir las teselas: " + ioe.getMessage());
+            System.exit(1);
+        } finally {
+            alberca.shutdown();
+        }
+    }
+
+    /* Carga un laberinto y contesta las consultas de un archivo o de la entrada estandar */
+    private static void consultas(String[] args){
+        String archivo = null, consultas = null;
+        boolean trayectoria = false;
+        for (int i = 1; i < args.length; i++){
+            if (args[i].equals("-r"))
+                trayectoria = true;
+            else if (archivo == null)
+                archivo = args[i];
+            else if (consultas == null)
+                consultas = args[i];
+            else
+                usoConsultas();
+        }
+        if (archivo == null)
+            usoConsultas();
+        Lista<Integer> numeros = null;
+        try{
+            numeros = leerBytes(new FileInputStream(archivo));
+        } catch (IOException ioe){
+            System.err.println("No se pudo abrir el archivo " + archivo);
+            System.exit(1);
+        }
+        ServidorConsultas servidor = new ServidorConsultas(new Laberinto(numeros), trayectoria);
+        try{
+            InputStream entrada = consultas == null ? System.in : new FileInputStream(consultas);
+            servidor.atiende(entrada, System.out);
+            entrada.close();
+        } catch (IOException ioe){
+            System.err.println("Ocurrio un error al contestar las consultas: " + ioe.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /* Valida un archivo de laberinto por franjas en paralelo */
+    private static void valida(String[] args){
+        if (args.length < 2 || args.length > 3)
+            usoValidacion();
+        int franjas = 0;
+        try{
+            if (args.length == 3)
+                franjas = Integer.parseInt(args[2]);
+        } catch (NumberFormatException nfe){
+            usoValidacion();
+        }
+        ValidadorFranjas validador = null;
+        try{
+            ByteBuffer bytes = ValidadorFranjas.mapea(args[1]);
+            if (bytes.limit() >= 4 && bytes.get(0) == 'M' && bytes.get(1) == 'A' &&
+                bytes.get(2) == 'Z' && bytes.get(3) == 'C'){
+                bytes = ByteBuffer.wrap(new ContenedorComprimido(bytes).descomprime());
+            }
+            validador = new ValidadorFranjas(bytes);
+        } catch (IllegalArgumentException iae){
+            System.err.println("Archivo invalido: " + iae.getMessage());
+            System.exit(1);
+        } catch (IOException ioe){
+            System.err.println("No se pudo abrir el archivo " + args[1]);
+            System.exit(1);
+        }
+        if (!(franjas > 0 ? validador.valida(franjas) : validador.valida())){
+            System.err.println("Archivo invalido: " + validador.getError());
+            System.exit(1);
+        }
+        System.out.println("Laberinto valido");
     }
 }
@@ -0,0 +1,288 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Clase que dibuja el laberinto como imagen de pixeles, en formato PGM (tonos
+ * de gris) o PPM (a color), con un tamano configurable de casilla. Dibuja
+ * las mismas paredes que {@link TrazosSVG}, la solucion y la entrada y la
+ * salida. La imagen se genera una linea de pixeles a la vez, directo de los
+ * bytes de la cuadricula y en un solo arreglo del ancho de la imagen, asi que
+ * la memoria no depende de la altura; las lineas se agrupan en franjas de
+ * renglones de casillas que se pueden generar en paralelo con un {@link
+ * EscritorFranjas}.
+ */
+public class RasterLaberinto {
+
+    /** Renglones de casillas de cada franja al generar por franjas. */
+    public static final int RENGLONES_POR_FRANJA = 8;
+
+    /* Colores en gris y a color */
+    private static final byte[] FONDO_GRIS = { (byte)255 };
+    private static final byte[] PARED_GRIS = { 0 };
+    private static final byte[] SOLUCION_GRIS = { (byte)160 };
+    private static final byte[] ENTRADA_GRIS = { 96 };
+    private static final byte[] SALIDA_GRIS = { 64 };
+    private static final byte[] FONDO_COLOR = { (byte)255, (byte)255, (byte)255 };
+    private static final byte[] PARED_COLOR = { 0, 0, 0 };
+    private static final byte[] SOLUCION_COLOR = { (byte)255, 20, (byte)147 };
+    private static final byte[] ENTRADA_COLOR = { 0, (byte)250, (byte)154 };
+    private static final byte[] SALIDA_COLOR = { (byte)128, 0, 0 };
+
+    /* Enlaces de la solucion de cada casilla */
+    private static final int EN_SOLUCION = 1;
+    private static final int ENLACE_ESTE = 2;
+    private static final int ENLACE_SUR = 4;
+
+    /* La cuadricula del laberinto */
+    private Cuadricula cuadricula;
+    /* Los enlaces de la solucion de cada casilla, o null si no se dibuja */
+    private byte[] solucion;
+    /* La entrada y la salida, o -1 si no se dibujan */
+    private int entrada = -1, salida = -1;
+    /* El lado de una casilla y el grosor de una pared, en pixeles */
+    private int lado, grosor;
+    /* La mitad del grosor de la solucion y el radio de los puntos */
+    private int medio, radio;
+    /* El color de fondo de cada casilla, ya en los canales de la imagen y
+     * por renglones, o null para usar el mismo */
+    private byte[] tonos;
+    /* Si la imagen es a color */
+    private boolean color;
+    /* Los colores */
+    private byte[] fondo, pared, colorSolucion, colorEntrada, colorSalida;
+
+    /**
+     * Construye el dibujo de una cuadricula.
+     * @param cuadricula la cuadricula del laberinto.
+     * @param trayectoria las casillas de la solucion, como
+     *        <code>y * ancho + x</code>, de la entrada a la salida, o
+     *        <code>null</code> para no dibujarla.
+     * @param lado el lado de una casilla en pixeles, al menos 2.
+     * @param color si la imagen es a color (PPM) o en gris (PGM).
+     * @throws IllegalArgumentException si el lado es menor que 2.
+     */
+    public RasterLaberinto(Cuadricula cuadricula, int[] trayectoria, int lado, boolean color){
+        this(cuadricula, enlaces(trayectoria, cuadricula.getAncho() * cuadricula.getAlto()),
+             trayectoria == null || trayectoria.length == 0 ? -1 : trayectoria[0],
+             trayectoria == null || trayectoria.length == 0 ? -1 : trayectoria[trayectoria.length - 1],
+             lado, color);
+    }
+
+    /* Construye el dibujo con los enlaces de la solucion ya calculados (null
+     * para no dibujarla), y la entrada y la salida (-1 si no se dibujan) */
+    RasterLaberinto(Cuadricula cuadricula, byte[] solucion, int entrada, int salida, int lado, boolean color){
+        if (lado < 2)
+            throw new IllegalArgumentException("El lado de una casilla debe ser al menos de 2 pixeles");
+        this.cuadricula = cuadricula;
+        this.solucion = solucion;
+        this.entrada = entrada;
+        this.salida = salida;
+        this.lado = lado;
+        this.color = color;
+        grosor = Math.max(1, lado / 8);
+        medio = Math.max(1, lado / 10);
+        radio = Math.max(1, lado / 4);
+        fondo = color ? FONDO_COLOR : FONDO_GRIS;
+        pared = color ? PARED_COLOR : PARED_GRIS;
+        colorSolucion = color ? SOLUCION_COLOR : SOLUCION_GRIS;
+        colorEntrada = color ? ENTRADA_COLOR : ENTRADA_GRIS;
+        colorSalida = color ? SALIDA_COLOR : SALIDA_GRIS;
+    }
+
+    /* Regresa los enlaces de la solucion de cada casilla, o null si no hay
+     * trayectoria: si la casilla esta en la solucion y si la solucion la une
+     * con su vecina del este o del sur */
+    static byte[] enlaces(int[] trayectoria, int casillas){
+        if (trayectoria == null || trayectoria.length == 0)
+            return null;
+        byte[] solucion = new byte[casillas];
+        for (int i = 0; i < trayectoria.length; i++){
+            solucion[trayectoria[i]] |= EN_SOLUCION;
+            if (i == 0)
+                continue;
+            int a = Math.min(trayectoria[i-1], trayectoria[i]);
+            int b = Math.max(trayectoria[i-1], trayectoria[i]);
+            solucion[a] |= b - a == 1 ? ENLACE_ESTE : ENLACE_SUR;
+        }
+        return solucion;
+    }
+
+    /**
+     * Define un color de fondo para cada casilla, por ejemplo para un mapa
+     * de calor; en una imagen en gris se usa la luminosidad del color.
+     * @param colores el color de cada casilla como <code>0xRRGGBB</code>,
+     *        por renglones, o <code>null</code> para el fondo blanco.
+     * @throws IllegalArgumentException si no hay un color por casilla.
+     */
+    public void setColores(int[] colores){
+        if (colores == null){
+            tonos = null;
+            return;
+        }
+        if (colores.length != cuadricula.getAncho() * cuadricula.getAlto())
+            throw new IllegalArgumentException("Debe haber un color por casilla");
+        int canales = fondo.length;
+        tonos = new byte[canales * colores.length];
+        for (int i = 0; i < colores.length; i++){
+            int rgb = colores[i];
+            if (color){
+                tonos[3 * i] = (byte)(rgb >> 16);
+                tonos[3 * i + 1] = (byte)(rgb >> 8);
+                tonos[3 * i + 2] = (byte)rgb;
+            } else {
+                tonos[i] = (byte)((299 * ((rgb >> 16) & 0xFF) + 587 * ((rgb >> 8) & 0xFF) + 114 * (rgb & 0xFF)) / 1000);
+            }
+        }
+    }
+
+    /**
+     * Regresa el ancho de la imagen en pixeles.
+     * @return el ancho de la imagen.
+     */
+    public int getAnchoImagen(){
+        return cuadricula.getAncho() * lado + grosor;
+    }
+
+    /**
+     * Regresa la altura de la imagen en pixeles.
+     * @return la altura de la imagen.
+     */
+    public int getAltoImagen(){
+        return cuadricula.getAlto() * lado + grosor;
+    }
+
+    /**
+     * Escribe la imagen en una salida; no vacia ni cierra la salida.
+     * @param flujo la salida.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(OutputStream flujo) throws IOException {
+        escribe(flujo, new EscritorFranjas());
+    }
+
+    /**
+     * Escribe la imagen en una salida, generando las lineas de pixeles por
+     * franjas de {@link #RENGLONES_POR_FRANJA} renglones de casillas con un
+     * escritor de franjas; no vacia ni cierra la salida.
+     * @param flujo la salida.
+     * @param franjas el escritor de franjas.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(OutputStream flujo, EscritorFranjas franjas) throws IOException {
+        String encabezado = (color ? "P6\n" : "P5\n") + getAnchoImagen() + " " + getAltoImagen() + "\n255\n";
+        flujo.write(encabezado.getBytes(StandardCharsets.US_ASCII));
+        int alto = cuadricula.getAlto();
+        franjas.escribe((alto + RENGLONES_POR_FRANJA - 1) / RENGLONES_POR_FRANJA, (franja, salida) -> {
+                int desde = franja * RENGLONES_POR_FRANJA * lado;
+                int hasta = Math.min(desde + RENGLONES_POR_FRANJA * lado, alto * lado);
+                if (hasta == alto * lado)
+                    hasta += grosor;
+                byte[] linea = new byte[getAnchoImagen() * fondo.length];
+                for (int py = desde; py < hasta; py++){
+                    linea(py, linea);
+                    salida.write(linea);
+                }
+            }, flujo);
+    }
+
+    /* Dibuja una linea de pixeles */
+    void linea(int py, byte[] linea){
+        int ancho = cuadricula.getAncho(), alto = cuadricula.getAlto();
+        pinta(linea, 0, getAnchoImagen(), fondo);
+        int cy = Math.min(py / lado, alto);
+        int oy = py - cy * lado;
+        if (tonos != null && cy < alto)
+            for (int x = 0; x < ancho; x++)
+                pinta(linea, x * lado, (x + 1) * lado, tonos, (cy * ancho + x) * fondo.length);
+        if (solucion != null){
+            for (int r = Math.max(cy - 1, 0); r <= Math.min(cy, alto - 1); r++)
+                solucion(py, r, linea);
+            punto(py, entrada, colorEntrada, linea);
+            punto(py, salida, colorSalida, linea);
+        }
+        if (oy < grosor)
+            for (int x = 0; x < ancho; x++)
+                if (horizontal(x, cy))
+                    pinta(linea, x * lado, (x + 1) * lado + grosor, pared);
+        for (int x = 0; x <= ancho; x++)
+            if ((cy < alto && vertical(x, cy)) || (oy < grosor && cy > 0 && vertical(x, cy - 1)))
+                pinta(linea, x * lado, x * lado + grosor, pared);
+    }
+
+    /* Dibuja la parte de la solucion de un renglon de casillas que cae en
+     * una linea de pixeles */
+    private void solucion(int py, int r, byte[] linea){
+        int ancho = cuadricula.getAncho();
+        int centroY = centro(r);
+        if (py < centroY - medio || py >= centroY + lado + medio)
+            return;
+        boolean enCentro = py < centroY + medio;
+        for (int x = 0; x < ancho; x++){
+            int enlaces = solucion[r * ancho + x];
+            if (enlaces == 0)
+                continue;
+            int centroX = centro(x);
+            if (enCentro && (enlaces & ENLACE_ESTE) != 0)
+                pinta(linea, centroX - medio, centroX + lado + medio, colorSolucion);
+            else if (enCentro)
+                pinta(linea, centroX - medio, centroX + medio, colorSolucion);
+            if ((enlaces & ENLACE_SUR) != 0)
+                pinta(linea, centroX - medio, centroX + medio, colorSolucion);
+        }
+    }
+
+    /* Dibuja la parte de un punto que cae en una linea de pixeles */
+    private void punto(int py, int casilla, byte[] color, byte[] linea){
+        if (casilla < 0)
+            return;
+        int ancho = cuadricula.getAncho();
+        int dy = py - centro(casilla / ancho);
+        if (dy < -radio || dy > radio)
+            return;
+        int dx = (int)Math.sqrt(radio * radio - dy * dy);
+        int centroX = centro(casilla % ancho);
+        pinta(linea, centroX - dx, centroX + dx + 1, color);
+    }
+
+    /* Regresa el centro en pixeles de una columna o renglon de casillas */
+    private int centro(int i){
+        return i * lado + (lado + grosor) / 2;
+    }
+
+    /* Nos dice si hay pared en la linea horizontal y, en la columna x */
+    private boolean horizontal(int x, int y){
+        if (y == cuadricula.getAlto())
+            return (cuadricula.getCasilla(x, y - 1) & Cuadricula.SUR) != 0;
+        return (cuadricula.getCasilla(x, y) & Cuadricula.NORTE) != 0;
+    }
+
+    /* Nos dice si hay pared en la linea vertical x, en el renglon y */
+    private boolean vertical(int x, int y){
+        if (x == cuadricula.getAncho())
+            return (cuadricula.getCasilla(x - 1, y) & Cuadricula.ESTE) != 0;
+        return (cuadricula.getCasilla(x, y) & Cuadricula.OESTE) != 0;
+    }
+
+    /* Pinta los pixeles en [desde, hasta) de una linea, recortando a la imagen */
+    private void pinta(byte[] linea, int desde, int hasta, byte[] color){
+        pinta(linea, desde, hasta, color, 0);
+    }
+
+    /* Pinta los pixeles en [desde, hasta) de una linea con el color que
+     * empieza en un indice de un arreglo de colores */
+    private void pinta(byte[] linea, int desde, int hasta, byte[] colores, int inicio){
+        int canales = fondo.length;
+        desde = Math.max(desde, 0) * canales;
+        hasta = Math.min(hasta * canales, linea.length);
+        if (canales == 1){
+            for (int i = desde; i < hasta; i++)
+                linea[i] = colores[inicio];
+            return;
+        }
+        for (int i = desde; i < hasta; i += canales)
+            for (int c = 0; c < canales; c++)
+                linea[i + c] = colores[inicio + c];
+    }
+}
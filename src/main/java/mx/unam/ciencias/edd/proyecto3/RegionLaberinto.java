@@ -0,0 +1,144 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Clase para una region rectangular de un laberinto: una {@link Cuadricula}
+ * con solo las casillas de la region, que recuerda donde esta dentro del
+ * laberinto completo. Se lee de un archivo normal o de un contenedor
+ * comprimido sin decodificar el resto del laberinto: del archivo normal se
+ * copian solo los pedazos de renglon de la region, calculando donde empieza
+ * cada renglon, y del contenedor solo se descomprimen los bloques de los
+ * renglones de la region. Sobre un archivo mapeado a memoria, solo se leen
+ * del disco las paginas que tocan esos pedazos. Las coordenadas de la
+ * cuadricula son relativas a la region.
+ */
+public class RegionLaberinto extends Cuadricula {
+
+    /* La esquina noroeste de la region en el laberinto */
+    private int x, y;
+    /* El ancho y la altura del laberinto completo */
+    private int anchoTotal, altoTotal;
+
+    /* Constructor de la clase */
+    private RegionLaberinto(byte[] casillas, int x, int y, int ancho, int alto,
+                            int anchoTotal, int altoTotal){
+        super(casillas, 0, ancho, alto);
+        this.x = x;
+        this.y = y;
+        this.anchoTotal = anchoTotal;
+        this.altoTotal = altoTotal;
+    }
+
+    /**
+     * Lee una region de un archivo de laberinto, normal o comprimido,
+     * mapeandolo a memoria.
+     * @param archivo la ruta del archivo.
+     * @param x la columna de la esquina noroeste de la region.
+     * @param y el renglon de la esquina noroeste de la region.
+     * @param ancho el ancho de la region.
+     * @param alto la altura de la region.
+     * @return la region.
+     * @throws IOException si no se puede abrir o mapear el archivo.
+     * @throws IllegalArgumentException si el archivo no es valido o la
+     *         region no esta dentro del laberinto.
+     */
+    public static RegionLaberinto lee(String archivo, int x, int y, int ancho, int alto) throws IOException {
+        return lee(ValidadorFranjas.mapea(archivo), x, y, ancho, alto);
+    }
+
+    /**
+     * Lee una region de los bytes de un laberinto, normal o comprimido.
+     * @param bytes los bytes del archivo, desde la posicion 0 hasta el
+     *        limite.
+     * @param x la columna de la esquina noroeste de la region.
+     * @param y el renglon de la esquina noroeste de la region.
+     * @param ancho el ancho de la region.
+     * @param alto la altura de la region.
+     * @return la region.
+     * @throws IllegalArgumentException si los bytes no son un laberinto o la
+     *         region no esta dentro del laberinto.
+     */
+    public static RegionLaberinto lee(ByteBuffer bytes, int x, int y, int ancho, int alto){
+        if (bytes.limit() >= 4 && bytes.get(0) == 'M' && bytes.get(1) == 'A' &&
+            bytes.get(2) == 'Z' && bytes.get(3) == 'C')
+            return comprimida(new ContenedorComprimido(bytes), x, y, ancho, alto);
+        if (bytes.limit() < ENCABEZADO || bytes.get(0) != 'M' || bytes.get(1) != 'A' ||
+            bytes.get(2) != 'Z' || bytes.get(3) != 'E')
+            throw new IllegalArgumentException("El archivo no empieza con MAZE ni con MAZC");
+        int altoTotal = bytes.get(4) & 0xFF, anchoTotal = bytes.get(5) & 0xFF;
+        revisa(x, y, ancho, alto, anchoTotal, altoTotal);
+        if (bytes.limit() < ENCABEZADO + anchoTotal * altoTotal)
+            throw new IllegalArgumentException("El archivo termina antes de tiempo");
+        byte[] casillas = new byte[ancho * alto];
+        ByteBuffer vista = bytes.duplicate();
+        for (int r = 0; r < alto; r++){
+            vista.position(ENCABEZADO + (y + r) * anchoTotal + x);
+            vista.get(casillas, r * ancho, ancho);
+        }
+        return new RegionLaberinto(casillas, x, y, ancho, alto, anchoTotal, altoTotal);
+    }
+
+    /**
+     * Lee una region de un contenedor comprimido.
+     * @param contenedor el contenedor.
+     * @param x la columna de la esquina noroeste de la region.
+     * @param y el renglon de la esquina noroeste de la region.
+     * @param ancho el ancho de la region.
+     * @param alto la altura de la region.
+     * @return la region.
+     * @throws IllegalArgumentException si la region no esta dentro del
+     *         laberinto o el contenedor esta corrupto.
+     */
+    public static RegionLaberinto comprimida(ContenedorComprimido contenedor, int x, int y, int ancho, int alto){
+        int anchoTotal = contenedor.getAncho(), altoTotal = contenedor.getAlto();
+        revisa(x, y, ancho, alto, anchoTotal, altoTotal);
+        byte[] renglones = contenedor.renglones(y, y + alto);
+        byte[] casillas = renglones;
+        if (ancho != anchoTotal){
+            casillas = new byte[ancho * alto];
+            for (int r = 0; r < alto; r++)
+                System.arraycopy(renglones, r * anchoTotal + x, casillas, r * ancho, ancho);
+        }
+        return new RegionLaberinto(casillas, x, y, ancho, alto, anchoTotal, altoTotal);
+    }
+
+    /**
+     * Regresa la columna de la esquina noroeste de la region en el laberinto.
+     * @return la columna de la esquina noroeste de la region.
+     */
+    public int getX(){
+        return x;
+    }
+
+    /**
+     * Regresa el renglon de la esquina noroeste de la region en el laberinto.
+     * @return el renglon de la esquina noroeste de la region.
+     */
+    public int getY(){
+        return y;
+    }
+
+    /**
+     * Regresa el ancho del laberinto completo.
+     * @return el ancho del laberinto completo.
+     */
+    public int getAnchoTotal(){
+        return anchoTotal;
+    }
+
+    /**
+     * Regresa la altura del laberinto completo.
+     * @return la altura del laberinto completo.
+     */
+    public int getAltoTotal(){
+        return altoTotal;
+    }
+
+    /* Revisa que la region este dentro del laberinto */
+    private static void revisa(int x, int y, int ancho, int alto, int anchoTotal, int altoTotal){
+        if (x < 0 || y < 0 || ancho < 1 || alto < 1 || x + ancho > anchoTotal || y + alto > altoTotal)
+            throw new IllegalArgumentException(String.format("La region (%d,%d) de %dx%d no esta dentro del laberinto de %dx%d",
+                                                             x, y, ancho, alto, anchoTotal, altoTotal));
+    }
+}
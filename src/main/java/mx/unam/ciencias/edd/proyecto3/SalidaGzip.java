@@ -0,0 +1,142 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Clase para escribir una salida comprimida con gzip, con un nivel de
+ * compresion configurable, conforme se genera. La salida puede tener varios
+ * miembros gzip seguidos, que cualquier lector de gzip descomprime como uno
+ * solo: lo que se escribe directo va a un miembro que se abre al escribir y
+ * se cierra al escribir un miembro ya comprimido con {@link #comprime}. Asi
+ * un {@link EscritorFranjas} puede comprimir cada franja en su propio hilo y
+ * este hilo solo copia los miembros en orden.
+ */
+public class SalidaGzip extends OutputStream {
+
+    /* Clase interna para que cerrar un miembro no cierre el destino */
+    private static class SinCerrar extends FilterOutputStream {
+
+        /* Constructor de la clase */
+        public SinCerrar(OutputStream destino){
+            super(destino);
+        }
+
+        /* Escribe sin pasar byte por byte */
+        @Override public void write(byte[] b, int desde, int cuantos) throws IOException {
+            out.write(b, desde, cuantos);
+        }
+
+        /* Solo vacia el destino */
+        @Override public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /* A donde se escribe */
+    private OutputStream destino;
+    /* El nivel de compresion */
+    private int nivel;
+    /* El miembro abierto, o null si no hay */
+    private GZIPOutputStream miembro;
+
+    /**
+     * Construye una salida comprimida.
+     * @param destino a donde se escriben los bytes comprimidos.
+     * @param nivel el nivel de compresion, de 1 (rapido) a 9 (mejor).
+     * @throws IllegalArgumentException si el nivel no es valido.
+     */
+    public SalidaGzip(OutputStream destino, int nivel){
+        if (nivel < Deflater.BEST_SPEED || nivel > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("El nivel de compresion debe ir de 1 a 9");
+        this.destino = destino;
+        this.nivel = nivel;
+    }
+
+    /**
+     * Comprime unos bytes en un miembro gzip completo, con el nivel de esta
+     * salida; se puede llamar desde cualquier hilo.
+     * @param bytes los bytes.
+     * @return el miembro gzip de los bytes.
+     */
+    public byte[] comprime(byte[] bytes){
+        ByteArrayOutputStream comprimidos = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = abre(comprimidos)){
+            gzip.write(bytes);
+        } catch (IOException ioe){
+            /* Un ByteArrayOutputStream no lanza IOException */
+        }
+        return comprimidos.toByteArray();
+    }
+
+    /**
+     * Cierra el miembro abierto y escribe un miembro ya comprimido.
+     * @param comprimido el miembro, de {@link #comprime}.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribeMiembro(byte[] comprimido) throws IOException {
+        terminaMiembro();
+        destino.write(comprimido);
+    }
+
+    @Override public void write(int b) throws IOException {
+        if (miembro == null)
+            miembro = abre(new SinCerrar(destino));
+        miembro.write(b);
+    }
+
+    @Override public void write(byte[] b, int desde, int cuantos) throws IOException {
+        if (cuantos == 0)
+            return;
+        if (miembro == null)
+            miembro = abre(new SinCerrar(destino));
+        miembro.write(b, desde, cuantos);
+    }
+
+    /**
+     * Vacia el destino; no cierra el miembro abierto, asi que lo que falta
+     * de el se escribe hasta {@link #termina} o {@link #close}.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    @Override public void flush() throws IOException {
+        destino.flush();
+    }
+
+    /**
+     * Cierra el miembro abierto y vacia el destino, sin cerrarlo.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void termina() throws IOException {
+        terminaMiembro();
+        destino.flush();
+    }
+
+    /**
+     * Cierra el miembro abierto y el destino.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    @Override public void close() throws IOException {
+        terminaMiembro();
+        destino.close();
+    }
+
+    /* Cierra el miembro abierto, si hay */
+    private void terminaMiembro() throws IOException {
+        if (miembro == null)
+            return;
+        miembro.close();
+        miembro = null;
+    }
+
+    /* Abre un miembro gzip con el nivel de esta salida */
+    private GZIPOutputStream abre(OutputStream salida) throws IOException {
+        return new GZIPOutputStream(salida, 1 << 16) {
+            {
+                def.setLevel(nivel);
+            }
+        };
+    }
+}
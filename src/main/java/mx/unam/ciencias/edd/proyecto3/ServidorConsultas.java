@@ -0,0 +1,220 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import mx.unam.ciencias.edd.JerarquiaContraccion;
+import mx.unam.ciencias.edd.proyecto3.Laberinto.Casilla;
+
+/**
+ * Clase que carga un laberinto una sola vez y contesta muchas consultas de
+ * trayectoria minima entre pares de casillas. Cada consulta son cuatro
+ * numeros <code>x1 y1 x2 y2</code>; por cada una se escribe una linea con
+ * el costo de la trayectoria (o -1 si no existe) y, si se pide, la
+ * trayectoria codificada como movimientos N, E, S y O.
+ * La lectura de consultas se hace en otro hilo, por bloques que se
+ * reutilizan, mientras este hilo contesta los bloques ya leidos.
+ */
+public class ServidorConsultas {
+
+    /* Clase interna para bloques de consultas */
+    private static class Bloque {
+        /* Las coordenadas de las consultas, cuatro por consulta */
+        private int[] coordenadas = new int[4 * CONSULTAS_POR_BLOQUE];
+        /* El numero de numeros leidos */
+        private int numeros;
+    }
+
+    /* Consultas por bloque */
+    private static final int CONSULTAS_POR_BLOQUE = 4096;
+    /* Bloques en circulacion entre el lector y el que contesta */
+    private static final int BLOQUES = 4;
+    /* Bloque que indica el fin de las consultas */
+    private static final Bloque FIN = new Bloque();
+
+    /* El laberinto */
+    Laberinto laberinto;
+    /* La jerarquia de contraccion de la grafica del laberinto */
+    JerarquiaContraccion<Casilla> jerarquia;
+    /* El indice en la jerarquia de cada casilla, por renglones */
+    int[] indices;
+    /* La casilla (por renglones) de cada indice de la jerarquia */
+    int[] casillas;
+    /* El ancho y la altura del laberinto */
+    int ancho, alto;
+    /* Si se escribe la trayectoria de cada consulta */
+    boolean trayectoria;
+    /* Error de lectura en el hilo lector */
+    IOException error;
+
+    /* Constructor de la clase */
+    public ServidorConsultas(Laberinto laberinto, boolean trayectoria){
+        this.laberinto = laberinto;
+        this.trayectoria = trayectoria;
+        int[] dimensiones = laberinto.getDimensiones();
+        alto = dimensiones[0];
+        ancho = dimensiones[1];
+        GraficaLaberinto grafica = new GraficaLaberinto(laberinto);
+        jerarquia = new JerarquiaContraccion<>(grafica.getGrafica());
+        indices = new int[ancho * alto];
+        casillas = new int[ancho * alto];
+        for (int y = 0; y < alto; y++)
+            for (int x = 0; x < ancho; x++){
+                int i = jerarquia.indice(laberinto.getCasilla(x, y));
+                indices[y * ancho + x] = i;
+                casillas[i] = y * ancho + x;
+            }
+    }
+
+    /**
+     * Contesta todas las consultas de la entrada, escribiendo las respuestas
+     * en la salida en el mismo orden. Si la entrada esta mal formada, contesta
+     * las consultas completas anteriores al error y despues lo lanza.
+     * @param entrada de donde se leen las consultas.
+     * @param salida a donde se escriben las respuestas.
+     * @throws IOException si ocurre un error al leer o al escribir, si un
+     *         numero no cabe en un int o si la ultima consulta esta
+     *         incompleta.
+     */
+    public void atiende(InputStream entrada, OutputStream salida) throws IOException {
+        BlockingQueue<Bloque> vacios = new ArrayBlockingQueue<>(BLOQUES);
+        BlockingQueue<Bloque> llenos = new ArrayBlockingQueue<>(BLOQUES + 1);
+        for (int i = 0; i < BLOQUES; i++)
+            vacios.add(new Bloque());
+        Thread lector = new Thread(() -> lee(entrada, vacios, llenos));
+        lector.setDaemon(true);
+        lector.start();
+        EscritorBytes escritor = new EscritorBytes(salida);
+        try {
+            Bloque bloque;
+            while ((bloque = llenos.take()) != FIN){
+                for (int i = 0; i + 3 < bloque.numeros; i += 4)
+                    contesta(bloque.coordenadas, i, escritor);
+                vacios.put(bloque);
+            }
+        } catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+        }
+        escritor.termina();
+        if (error != null)
+            throw error;
+    }
+
+    /* Lee numeros de la entrada y los pasa por bloques al otro hilo; los
+     * numeros pueden tener signo, y cualquier otro caracter los separa. Si
+     * un numero no cabe en un int, hay un signo suelto o la ultima consulta
+     * esta incompleta, deja el error y pasa las consultas completas que ya
+     * leyo */
+    private void lee(InputStream entrada, BlockingQueue<Bloque> vacios, BlockingQueue<Bloque> llenos){
+        byte[] buffer = new byte[1 << 16];
+        try {
+            Bloque bloque = vacios.take();
+            bloque.numeros = 0;
+            long numeros = 0;
+            int numero = -1, signo = 0, leidos;
+            lectura:
+            while ((leidos = entrada.read(buffer)) != -1)
+                for (int i = 0; i < leidos; i++){
+                    int c = buffer[i];
+                    if (c >= '0' && c <= '9'){
+                        if (numero > (Integer.MAX_VALUE - (c - '0')) / 10){
+                            error = new IOException("Numero demasiado grande en la consulta " + (numeros / 4 + 1));
+                            break lectura;
+                        }
+                        numero = (numero < 0 ? 0 : numero * 10) + (c - '0');
+                        continue;
+                    }
+                    if (numero < 0 && signo != 0){
+                        error = new IOException("Signo sin numero en la consulta " + (numeros / 4 + 1));
+                        break lectura;
+                    }
+                    if (numero >= 0){
+                        bloque = agrega(bloque, signo < 0 ? -numero : numero, vacios, llenos);
+                        numeros++;
+                        numero = -1;
+                        signo = 0;
+                    }
+                    if (c == '-' || c == '+')
+                        signo = c == '-' ? -1 : 1;
+                }
+            if (error == null && numero < 0 && signo != 0)
+                error = new IOException("Signo sin numero en la consulta " + (numeros / 4 + 1));
+            if (error == null && numero >= 0){
+                bloque = agrega(bloque, signo < 0 ? -numero : numero, vacios, llenos);
+                numeros++;
+            }
+            if (error == null && numeros % 4 != 0)
+                error = new IOException("La consulta " + (numeros / 4 + 1) + " esta incompleta");
+            llenos.put(bloque);
+        } catch (IOException ioe){
+            error = ioe;
+        } catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+        }
+        try {
+            llenos.put(FIN);
+        } catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* Agrega un numero al bloque; si el bloque se llena, lo pasa al otro
+     * hilo y regresa uno vacio */
+    private Bloque agrega(Bloque bloque, int numero, BlockingQueue<Bloque> vacios,
+                          BlockingQueue<Bloque> llenos) throws InterruptedException {
+        bloque.coordenadas[bloque.numeros++] = numero;
+        if (bloque.numeros < bloque.coordenadas.length)
+            return bloque;
+        llenos.put(bloque);
+        bloque = vacios.take();
+        bloque.numeros = 0;
+        return bloque;
+    }
+
+    /* Contesta la consulta que empieza en el indice i */
+    private void contesta(int[] c, int i, EscritorBytes escritor) throws IOException {
+        int origen = indice(c[i], c[i+1]), destino = indice(c[i+2], c[i+3]);
+        if (origen < 0 || destino < 0){
+            escritor.escribeNumero(-1);
+            escritor.escribe('\n');
+            return;
+        }
+        if (!trayectoria){
+            double distancia = jerarquia.distancia(origen, destino);
+            escritor.escribeNumero(distancia == Double.MAX_VALUE ? -1 : (long)distancia);
+            escritor.escribe('\n');
+            return;
+        }
+        int[] vertices = jerarquia.trayectoria(origen, destino);
+        if (vertices.length == 0){
+            escritor.escribeNumero(-1);
+            escritor.escribe('\n');
+            return;
+        }
+        long costo = 0;
+        for (int j = 1; j < vertices.length; j++)
+            costo += GraficaLaberinto.peso(jerarquia.get(vertices[j-1]), jerarquia.get(vertices[j]));
+        escritor.escribeNumero(costo);
+        escritor.escribe(' ');
+        for (int j = 1; j < vertices.length; j++)
+            escritor.escribe(movimiento(casillas[vertices[j-1]], casillas[vertices[j]]));
+        escritor.escribe('\n');
+    }
+
+    /* Regresa el indice en la jerarquia de la casilla, o -1 si no existe */
+    private int indice(int x, int y){
+        if (x < 0 || x >= ancho || y < 0 || y >= alto)
+            return -1;
+        return indices[y * ancho + x];
+    }
+
+    /* Regresa la letra del movimiento entre dos casillas vecinas */
+    private int movimiento(int desde, int hasta){
+        if (hasta == desde + 1)
+            return 'E';
+        if (hasta == desde - 1)
+            return 'O';
+        return hasta < desde ? 'N' : 'S';
+    }
+}
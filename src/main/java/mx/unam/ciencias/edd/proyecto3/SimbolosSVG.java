@@ -0,0 +1,150 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Clase que genera un svg compacto del laberinto a partir de su cuadricula.
+ * Dibuja las mismas paredes que {@link LaberintoSVG}, pero como cada casilla
+ * solo puede tener 16 combinaciones de paredes, define un
+ * <code>&lt;symbol&gt;</code> por combinacion y dibuja cada casilla con un
+ * <code>&lt;use&gt;</code> corto que solo tiene su columna; cada renglon de
+ * casillas es un grupo trasladado a su altura. De cada casilla se dibujan
+ * siempre las paredes norte y oeste, la este solo en la ultima columna y la
+ * sur solo en el ultimo renglon, asi que cada pared se dibuja una vez. La
+ * solucion se dibuja como en {@link TrazosSVG}. Los renglones no dependen
+ * unos de otros, asi que se pueden generar por separado.
+ */
+public class SimbolosSVG {
+
+    /** Renglones de cada franja al generar por franjas. */
+    public static final int RENGLONES_POR_FRANJA = 16;
+
+    /* El lado de una casilla */
+    private static final int LADO = 40;
+    /* Donde empiezan las casillas */
+    private static final int ORIGEN = 20;
+
+    /* Los pedazos fijos del codigo, ya en bytes */
+    private static final byte[] DEFS = FragmentosSVG.bytes(" <defs>\n");
+    private static final byte[] DEFS_FIN = FragmentosSVG.bytes(" </defs>\n");
+    private static final byte[] SIMBOLO = FragmentosSVG.bytes("\t<symbol id='p");
+    private static final byte[] SIMBOLO_TRAZOS = FragmentosSVG.bytes("' overflow='visible'><path d='");
+    private static final byte[] SIMBOLO_FIN = FragmentosSVG.bytes("' stroke='black' stroke-width='5' fill='none' /></symbol>\n");
+    private static final byte[] RENGLON = FragmentosSVG.bytes("\t<g transform='translate(");
+    private static final byte[] RENGLON_FIN = FragmentosSVG.bytes(")'>");
+    private static final byte[] CASILLA = FragmentosSVG.bytes("<use xlink:href='#p");
+    private static final byte[] CASILLA_X = FragmentosSVG.bytes("' x='");
+    private static final byte[] CASILLA_FIN = FragmentosSVG.bytes("'/>");
+    private static final byte[] GRUPO_FIN = FragmentosSVG.bytes("</g>\n");
+
+    /* La cuadricula del laberinto */
+    private Cuadricula cuadricula;
+    /* Las casillas de la solucion, de la entrada a la salida */
+    private int[] trayectoria;
+
+    /**
+     * Construye el generador para una cuadricula y su solucion.
+     * @param cuadricula la cuadricula del laberinto.
+     * @param trayectoria las casillas de la solucion, como
+     *        <code>y * ancho + x</code>, de la entrada a la salida.
+     * @throws IllegalArgumentException si la trayectoria es vacia.
+     */
+    public SimbolosSVG(Cuadricula cuadricula, int[] trayectoria){
+        if (trayectoria.length == 0)
+            throw new IllegalArgumentException("La trayectoria es vacia");
+        this.cuadricula = cuadricula;
+        this.trayectoria = trayectoria;
+    }
+
+    /**
+     * Escribe el codigo svg del laberinto en una salida, conforme se genera;
+     * no vacia ni cierra la salida.
+     * @param flujo la salida.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(OutputStream flujo) throws IOException {
+        escribe(flujo, new EscritorFranjas());
+    }
+
+    /**
+     * Escribe el codigo svg del laberinto en una salida, generando los
+     * renglones por franjas de {@link #RENGLONES_POR_FRANJA} con un escritor
+     * de franjas; la salida es la misma sin importar cuantas franjas se
+     * generen a la vez. No vacia ni cierra la salida.
+     * @param flujo la salida.
+     * @param franjas el escritor de franjas.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(OutputStream flujo, EscritorFranjas franjas) throws IOException {
+        int alto = cuadricula.getAlto();
+        EscritorBytes escritor = new EscritorBytes(flujo);
+        inicio(escritor);
+        escritor.vacia();
+        franjas.escribe((alto + RENGLONES_POR_FRANJA - 1) / RENGLONES_POR_FRANJA, (franja, salida) -> {
+                EscritorBytes e = new EscritorBytes(salida);
+                int desde = franja * RENGLONES_POR_FRANJA;
+                for (int y = desde; y < Math.min(desde + RENGLONES_POR_FRANJA, alto); y++)
+                    renglon(y, e);
+                e.vacia();
+            }, flujo);
+        TrazosSVG.solucion(trayectoria, cuadricula.getAncho(), escritor);
+        escritor.escribe(FragmentosSVG.CIERRE);
+        escritor.vacia();
+    }
+
+    /* Escribe el encabezado, los simbolos de las combinaciones de paredes y
+     * abre el grupo de las casillas */
+    private void inicio(EscritorBytes escritor) throws IOException {
+        FragmentosSVG.encabezado(2 * ORIGEN + LADO * cuadricula.getAncho(),
+                                 2 * ORIGEN + LADO * cuadricula.getAlto(), true, escritor);
+        escritor.escribe(DEFS);
+        for (int paredes = 1; paredes < 16; paredes++)
+            simbolo(paredes, escritor);
+        escritor.escribe(DEFS_FIN);
+        escritor.escribe(FragmentosSVG.GRUPO);
+    }
+
+    /* Escribe el simbolo de una combinacion de paredes, con la esquina
+     * noroeste de la casilla en el origen */
+    private void simbolo(int paredes, EscritorBytes escritor) throws IOException {
+        escritor.escribe(SIMBOLO);
+        escritor.escribeNumero(paredes);
+        escritor.escribe(SIMBOLO_TRAZOS);
+        StringBuilder trazos = new StringBuilder();
+        if ((paredes & Cuadricula.NORTE) != 0)
+            trazos.append("M0 0h").append(LADO);
+        if ((paredes & Cuadricula.OESTE) != 0)
+            trazos.append("M0 0v").append(LADO);
+        if ((paredes & Cuadricula.ESTE) != 0)
+            trazos.append("M").append(LADO).append(" 0v").append(LADO);
+        if ((paredes & Cuadricula.SUR) != 0)
+            trazos.append("M0 ").append(LADO).append("h").append(LADO);
+        escritor.escribe(FragmentosSVG.bytes(trazos.toString()));
+        escritor.escribe(SIMBOLO_FIN);
+    }
+
+    /* Escribe el grupo de un renglon de casillas, con un use por casilla
+     * que tiene paredes que dibujar */
+    private void renglon(int y, EscritorBytes escritor) throws IOException {
+        int ancho = cuadricula.getAncho(), alto = cuadricula.getAlto();
+        escritor.escribe(RENGLON);
+        escritor.escribeNumero(ORIGEN);
+        escritor.escribe(' ');
+        escritor.escribeNumero(ORIGEN + LADO * y);
+        escritor.escribe(RENGLON_FIN);
+        int mascara = Cuadricula.NORTE | Cuadricula.OESTE | (y == alto - 1 ? Cuadricula.SUR : 0);
+        for (int x = 0; x < ancho; x++){
+            int paredes = cuadricula.getCasilla(x, y) & (x == ancho - 1 ? mascara | Cuadricula.ESTE : mascara);
+            if (paredes == 0)
+                continue;
+            escritor.escribe(CASILLA);
+            escritor.escribeNumero(paredes);
+            if (x > 0){
+                escritor.escribe(CASILLA_X);
+                escritor.escribeNumero(LADO * x);
+            }
+            escritor.escribe(CASILLA_FIN);
+        }
+        escritor.escribe(GRUPO_FIN);
+    }
+}
@@ -0,0 +1,220 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Clase que genera un svg compacto del laberinto a partir de su cuadricula.
+ * Dibuja las mismas paredes que {@link LaberintoSVG}, pero junta las paredes
+ * seguidas de una misma linea en un solo trazo y escribe todos los trazos en
+ * un solo <code>&lt;path&gt;</code> con movimientos relativos; la solucion
+ * se dibuja con un solo <code>&lt;polyline&gt;</code> que solo tiene las
+ * vueltas de la trayectoria. Cada renglon de casillas escribe los trazos
+ * horizontales de su linea de arriba y los verticales que empiezan en el, y
+ * empieza con un movimiento absoluto, asi que los renglones se pueden
+ * generar por separado.
+ */
+public class TrazosSVG {
+
+    /* Clase interna para la posicion de la pluma dentro de un renglon */
+    private static class Pluma {
+
+        /* A donde se escribe */
+        private EscritorBytes escritor;
+        /* La posicion de la pluma */
+        private int x, y;
+        /* Si ya se movio la pluma en el renglon */
+        private boolean movida;
+
+        /* Constructor de la clase */
+        public Pluma(EscritorBytes escritor){
+            this.escritor = escritor;
+        }
+
+        /* Mueve la pluma sin dibujar; el primer movimiento es absoluto */
+        public void mueve(int x, int y) throws IOException {
+            if (movida){
+                escritor.escribe('m');
+                escritor.escribeNumero(x - this.x);
+            } else {
+                escritor.escribe('M');
+                escritor.escribeNumero(x);
+            }
+            escritor.escribe(' ');
+            escritor.escribeNumero(movida ? y - this.y : y);
+            this.x = x;
+            this.y = y;
+            movida = true;
+        }
+
+        /* Dibuja un trazo horizontal */
+        public void horizontal(int longitud) throws IOException {
+            escritor.escribe('h');
+            escritor.escribeNumero(longitud);
+            x += longitud;
+        }
+
+        /* Dibuja un trazo vertical */
+        public void vertical(int longitud) throws IOException {
+            escritor.escribe('v');
+            escritor.escribeNumero(longitud);
+            y += longitud;
+        }
+    }
+
+    /** Renglones de cada franja al generar por franjas. */
+    public static final int RENGLONES_POR_FRANJA = 16;
+
+    /* El lado de una casilla */
+    private static final int LADO = 40;
+    /* Donde empiezan las casillas */
+    private static final int ORIGEN = 20;
+
+    /* Los pedazos fijos del codigo, ya en bytes */
+    private static final byte[] TRAZOS = FragmentosSVG.bytes("\t<path d='");
+    private static final byte[] TRAZOS_FIN = FragmentosSVG.bytes("' stroke='black' stroke-width='5' fill='none' />\n");
+    private static final byte[] SOLUCION = FragmentosSVG.bytes("\t<polyline points='");
+    private static final byte[] SOLUCION_FIN = FragmentosSVG.bytes("' stroke='deeppink' stroke-width='5' fill='none' />\n");
+
+    /* La cuadricula del laberinto */
+    private Cuadricula cuadricula;
+    /* Las casillas de la solucion, de la entrada a la salida */
+    private int[] trayectoria;
+
+    /**
+     * Construye el generador para una cuadricula y su solucion.
+     * @param cuadricula la cuadricula del laberinto.
+     * @param trayectoria las casillas de la solucion, como
+     *        <code>y * ancho + x</code>, de la entrada a la salida.
+     * @throws IllegalArgumentException si la trayectoria es vacia.
+     */
+    public TrazosSVG(Cuadricula cuadricula, int[] trayectoria){
+        if (trayectoria.length == 0)
+            throw new IllegalArgumentException("La trayectoria es vacia");
+        this.cuadricula = cuadricula;
+        this.trayectoria = trayectoria;
+    }
+
+    /**
+     * Escribe el codigo svg del laberinto en una salida, conforme se genera;
+     * no vacia ni cierra la salida.
+     * @param flujo la salida.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(OutputStream flujo) throws IOException {
+        escribe(flujo, new EscritorFranjas());
+    }
+
+    /**
+     * Escribe el codigo svg del laberinto en una salida, generando los
+     * trazos por franjas de {@link #RENGLONES_POR_FRANJA} renglones con un
+     * escritor de franjas; la salida es la misma sin importar cuantas
+     * franjas se generen a la vez. No vacia ni cierra la salida.
+     * @param flujo la salida.
+     * @param franjas el escritor de franjas.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(OutputStream flujo, EscritorFranjas franjas) throws IOException {
+        int alto = cuadricula.getAlto();
+        EscritorBytes escritor = new EscritorBytes(flujo);
+        inicio(escritor);
+        escritor.vacia();
+        franjas.escribe((alto + RENGLONES_POR_FRANJA - 1) / RENGLONES_POR_FRANJA, (franja, salida) -> {
+                EscritorBytes e = new EscritorBytes(salida);
+                int desde = franja * RENGLONES_POR_FRANJA;
+                for (int y = desde; y < Math.min(desde + RENGLONES_POR_FRANJA, alto); y++)
+                    renglon(y, e);
+                e.vacia();
+            }, flujo);
+        fin(escritor);
+        escritor.vacia();
+    }
+
+    /* Escribe el encabezado y abre el path de las paredes */
+    private void inicio(EscritorBytes escritor) throws IOException {
+        FragmentosSVG.encabezado(2 * ORIGEN + LADO * cuadricula.getAncho(),
+                                 2 * ORIGEN + LADO * cuadricula.getAlto(), false, escritor);
+        escritor.escribe(FragmentosSVG.GRUPO);
+        escritor.escribe(TRAZOS);
+    }
+
+    /* Cierra el path de las paredes y escribe la solucion, los puntos y el cierre */
+    private void fin(EscritorBytes escritor) throws IOException {
+        escritor.escribe(TRAZOS_FIN);
+        solucion(trayectoria, cuadricula.getAncho(), escritor);
+        escritor.escribe(FragmentosSVG.CIERRE);
+    }
+
+    /* Escribe la solucion como un solo polyline con sus vueltas, y los
+     * puntos de la entrada y la salida */
+    static void solucion(int[] trayectoria, int ancho, EscritorBytes escritor) throws IOException {
+        escritor.escribe(SOLUCION);
+        for (int i = 0; i < trayectoria.length; i++){
+            /* Solo las vueltas y los extremos */
+            if (i > 0 && i < trayectoria.length - 1 &&
+                trayectoria[i] - trayectoria[i-1] == trayectoria[i+1] - trayectoria[i])
+                continue;
+            if (i > 0)
+                escritor.escribe(' ');
+            escritor.escribeNumero(2 * ORIGEN + LADO * (trayectoria[i] % ancho));
+            escritor.escribe(',');
+            escritor.escribeNumero(2 * ORIGEN + LADO * (trayectoria[i] / ancho));
+        }
+        escritor.escribe(SOLUCION_FIN);
+        punto(trayectoria[0], ancho, FragmentosSVG.ENTRADA, escritor);
+        punto(trayectoria[trayectoria.length - 1], ancho, FragmentosSVG.SALIDA, escritor);
+    }
+
+    /* Escribe los trazos de un renglon: los horizontales de su linea de
+     * arriba (y de la de abajo si es el ultimo) y los verticales que
+     * empiezan en el */
+    private void renglon(int y, EscritorBytes escritor) throws IOException {
+        int ancho = cuadricula.getAncho(), alto = cuadricula.getAlto();
+        Pluma pluma = new Pluma(escritor);
+        horizontales(y, y, Cuadricula.NORTE, pluma);
+        if (y == alto - 1)
+            horizontales(y, y + 1, Cuadricula.SUR, pluma);
+        for (int x = 0; x <= ancho; x++){
+            if (!pared(x, y) || (y > 0 && pared(x, y - 1)))
+                continue;
+            int k = 1;
+            while (y + k < alto && pared(x, y + k))
+                k++;
+            pluma.mueve(ORIGEN + LADO * x, ORIGEN + LADO * y);
+            pluma.vertical(LADO * k);
+        }
+        if (pluma.movida)
+            escritor.escribe('\n');
+    }
+
+    /* Escribe los trazos de una linea horizontal, segun una pared de las
+     * casillas del renglon */
+    private void horizontales(int y, int linea, int pared, Pluma pluma) throws IOException {
+        int ancho = cuadricula.getAncho();
+        int x = 0;
+        while (x < ancho){
+            if ((cuadricula.getCasilla(x, y) & pared) == 0){
+                x++;
+                continue;
+            }
+            int inicio = x;
+            while (x < ancho && (cuadricula.getCasilla(x, y) & pared) != 0)
+                x++;
+            pluma.mueve(ORIGEN + LADO * inicio, ORIGEN + LADO * linea);
+            pluma.horizontal(LADO * (x - inicio));
+        }
+    }
+
+    /* Nos dice si hay pared en la linea vertical x del renglon y: la pared
+     * oeste de la casilla, o la este de la ultima columna */
+    private boolean pared(int x, int y){
+        if (x == cuadricula.getAncho())
+            return (cuadricula.getCasilla(x - 1, y) & Cuadricula.ESTE) != 0;
+        return (cuadricula.getCasilla(x, y) & Cuadricula.OESTE) != 0;
+    }
+
+    /* Escribe el circulo de una casilla */
+    private static void punto(int casilla, int ancho, byte[] cola, EscritorBytes escritor) throws IOException {
+        FragmentosSVG.punto(2 * ORIGEN + LADO * (casilla % ancho),
+                            2 * ORIGEN + LADO * (casilla / ancho), cola, escritor);
+    }
+}
@@ -0,0 +1,280 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Clase que valida un archivo de laberinto por franjas de renglones en
+ * paralelo, sobre un archivo mapeado a memoria. Cada franja revisa que sus
+ * casillas coincidan con sus vecinas del oeste y del norte dentro de la
+ * franja, y anota sus puertas en el borde; despues se revisan aparte las
+ * costuras entre franjas (el primer renglon de cada franja contra el ultimo
+ * de la anterior) y se juntan los resultados. Hace las mismas revisiones que
+ * {@link ValidadorLaberinto}, y reporta el mismo primer error, salvo que la
+ * longitud del archivo se revisa antes que las casillas.
+ */
+public class ValidadorFranjas {
+
+    /* Clase interna para validar una franja de renglones */
+    private class Franja extends RecursiveAction {
+
+        /* Version de la serializacion */
+        private static final long serialVersionUID = 1L;
+
+        /* Los renglones de la franja, en [desde, hasta) */
+        private int desde, hasta;
+        /* La llave del primer error de la franja, o Long.MAX_VALUE */
+        private long llaveError = Long.MAX_VALUE;
+        /* La casilla vecina del primer error */
+        private int vecinoX, vecinoY;
+        /* Las llaves de las primeras tres puertas de la franja */
+        private long[] puertas = new long[3];
+        /* Cuantas puertas hay en la franja */
+        private int totalPuertas;
+
+        /* Constructor de la clase */
+        public Franja(int desde, int hasta){
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        /* Valida la franja */
+        @Override protected void compute(){
+            for (int y = desde; y < hasta && llaveError == Long.MAX_VALUE; y++)
+                for (int x = 0; x < ancho; x++){
+                    int c = casilla(x, y);
+                    if (x == 0)
+                        puerta(c, x, y, Cuadricula.OESTE, 0);
+                    else if (((c & Cuadricula.OESTE) == 0) != ((casilla(x - 1, y) & Cuadricula.ESTE) == 0)){
+                        error(x, y, 0, x - 1, y);
+                        break;
+                    }
+                    if (y == 0)
+                        puerta(c, x, y, Cuadricula.NORTE, 1);
+                    else if (y > desde && norteNoCoincide(x, y)){
+                        error(x, y, 1, x, y - 1);
+                        break;
+                    }
+                    if (x == ancho - 1)
+                        puerta(c, x, y, Cuadricula.ESTE, 2);
+                    if (y == alto - 1)
+                        puerta(c, x, y, Cuadricula.SUR, 3);
+                }
+        }
+
+        /* Anota una puerta en el borde si la pared esta abierta */
+        private void puerta(int c, int x, int y, int pared, int orden){
+            if ((c & pared) != 0)
+                return;
+            if (totalPuertas < puertas.length)
+                puertas[totalPuertas] = llave(x, y, orden);
+            totalPuertas++;
+        }
+
+        /* Anota el error de la franja */
+        private void error(int x, int y, int orden, int vx, int vy){
+            llaveError = llave(x, y, orden);
+            vecinoX = vx;
+            vecinoY = vy;
+        }
+    }
+
+    /* Los bytes del archivo */
+    private ByteBuffer bytes;
+    /* El ancho y la altura del laberinto */
+    private int ancho, alto;
+    /* La alberca de hilos */
+    private ForkJoinPool alberca;
+    /* El primer error, o null si no hay */
+    private String error;
+    /* Las coordenadas del error, o null si no es de una casilla */
+    private int[] posicion;
+
+    /**
+     * Construye un validador para los bytes de un archivo de laberinto, con
+     * la alberca comun de hilos.
+     * @param bytes los bytes del archivo, desde el encabezado.
+     */
+    public ValidadorFranjas(ByteBuffer bytes){
+        this(bytes, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construye un validador para los bytes de un archivo de laberinto.
+     * @param bytes los bytes del archivo, desde el encabezado.
+     * @param alberca la alberca de hilos.
+     */
+    public ValidadorFranjas(ByteBuffer bytes, ForkJoinPool alberca){
+        this.bytes = bytes;
+        this.alberca = alberca;
+    }
+
+    /**
+     * Mapea un archivo a memoria, solo para lectura.
+     * @param archivo la ruta del archivo.
+     * @return los bytes del archivo.
+     * @throws IOException si no se puede abrir o mapear el archivo.
+     */
+    public static MappedByteBuffer mapea(String archivo) throws IOException {
+        try (RandomAccessFile entrada = new RandomAccessFile(archivo, "r");
+             FileChannel canal = entrada.getChannel()){
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+    }
+
+    /**
+     * Valida el archivo con cuatro franjas por cada hilo de la alberca.
+     * @return <code>true</code> si el archivo es valido, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean valida(){
+        return valida(4 * alberca.getParallelism());
+    }
+
+    /**
+     * Valida el archivo dividiendolo en franjas.
+     * @param franjas el numero de franjas; se usan menos si hay menos
+     *        renglones.
+     * @return <code>true</code> si el archivo es valido, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean valida(int franjas){
+        error = null;
+        posicion = null;
+        if (!encabezado())
+            return false;
+        franjas = Math.max(1, Math.min(franjas, alto));
+        Franja[] tareas = new Franja[franjas];
+        for (int i = 0; i < franjas; i++)
+            tareas[i] = new Franja((int)((long)alto * i / franjas),
+                                   (int)((long)alto * (i + 1) / franjas));
+        alberca.invoke(new RecursiveAction(){
+                @Override protected void compute(){
+                    invokeAll(tareas);
+                }
+            });
+        return junta(tareas);
+    }
+
+    /**
+     * Regresa la descripcion del primer error.
+     * @return la descripcion del primer error, o <code>null</code> si no hay.
+     */
+    public String getError(){
+        return error;
+    }
+
+    /**
+     * Regresa las coordenadas de la casilla del primer error.
+     * @return un arreglo con la columna y el renglon de la casilla del primer
+     *         error, o <code>null</code> si no hay error o no es de una
+     *         casilla.
+     */
+    public int[] getPosicionError(){
+        return posicion;
+    }
+
+    /* Revisa el encabezado y la longitud del archivo */
+    private boolean encabezado(){
+        int n = bytes.limit();
+        if (n < Cuadricula.ENCABEZADO)
+            return falla("El archivo es demasiado corto para tener encabezado", null);
+        for (int i = 0; i < 4; i++)
+            if (bytes.get(i) != "MAZE".charAt(i))
+                return falla("El archivo no empieza con MAZE", null);
+        alto = bytes.get(4) & 0xFF;
+        ancho = bytes.get(5) & 0xFF;
+        if (alto < 2)
+            return falla("El laberinto debe tener al menos 2 renglones", null);
+        if (ancho < 2)
+            return falla("El laberinto debe tener al menos 2 columnas", null);
+        long casillas = (long)ancho * alto;
+        if (n - Cuadricula.ENCABEZADO < casillas){
+            long leidas = n - Cuadricula.ENCABEZADO;
+            return falla("El archivo termina antes de tiempo: faltan " + (casillas - leidas) + " casillas",
+                         new int[] { (int)(leidas % ancho), (int)(leidas / ancho) });
+        }
+        if (n - Cuadricula.ENCABEZADO > casillas)
+            return falla("El archivo tiene bytes de mas despues de las " + casillas + " casillas", null);
+        return true;
+    }
+
+    /* Revisa las costuras y junta los errores y las puertas de las franjas */
+    private boolean junta(Franja[] tareas){
+        long llave = Long.MAX_VALUE;
+        int vx = 0, vy = 0;
+        for (Franja franja : tareas){
+            if (franja.llaveError < llave){
+                llave = franja.llaveError;
+                vx = franja.vecinoX;
+                vy = franja.vecinoY;
+            }
+            /* La costura con la franja anterior */
+            if (franja.desde > 0)
+                for (int x = 0; x < ancho; x++)
+                    if (norteNoCoincide(x, franja.desde)){
+                        long costura = llave(x, franja.desde, 1);
+                        if (costura < llave){
+                            llave = costura;
+                            vx = x;
+                            vy = franja.desde - 1;
+                        }
+                        break;
+                    }
+        }
+        int puertas = 0;
+        long tercera = Long.MAX_VALUE;
+        for (Franja franja : tareas){
+            for (int i = 0; i < Math.min(franja.totalPuertas, 3) && puertas + i < 3; i++)
+                if (puertas + i == 2)
+                    tercera = franja.puertas[i];
+            puertas += franja.totalPuertas;
+        }
+        if (tercera < llave){
+            int[] p = coordenadas(tercera);
+            return falla("El laberinto tiene mas de una entrada y una salida", p);
+        }
+        if (llave != Long.MAX_VALUE){
+            int[] p = coordenadas(llave);
+            return falla(String.format("Las casillas de coordenadas (%d,%d) y (%d,%d) no coinciden en la pared que comparten",
+                                       p[0], p[1], vx, vy), p);
+        }
+        if (puertas < 2)
+            return falla("El laberinto debe tener una entrada y una salida", null);
+        return true;
+    }
+
+    /* Nos dice si la casilla no coincide con su vecina del norte */
+    private boolean norteNoCoincide(int x, int y){
+        return ((casilla(x, y) & Cuadricula.NORTE) == 0) != ((casilla(x, y - 1) & Cuadricula.SUR) == 0);
+    }
+
+    /* Regresa el byte de una casilla */
+    private int casilla(int x, int y){
+        return bytes.get(Cuadricula.ENCABEZADO + y * ancho + x) & 0xFF;
+    }
+
+    /* Regresa la llave de una revision, en el orden en que las hace el
+     * validador secuencial: por casilla y, dentro de la casilla, oeste,
+     * norte, este y sur */
+    private long llave(int x, int y, int orden){
+        return ((long)y * ancho + x) * 4 + orden;
+    }
+
+    /* Regresa las coordenadas de la casilla de una llave */
+    private int[] coordenadas(long llave){
+        long casilla = llave / 4;
+        return new int[] { (int)(casilla % ancho), (int)(casilla / ancho) };
+    }
+
+    /* Anota el error y regresa false */
+    private boolean falla(String error, int[] posicion){
+        this.error = error;
+        this.posicion = posicion;
+        return false;
+    }
+}
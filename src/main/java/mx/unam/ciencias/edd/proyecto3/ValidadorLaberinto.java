@@ -0,0 +1,214 @@
+package mx.unam.ciencias.edd.proyecto3;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Clase que valida un archivo de laberinto mientras se lee, en una sola
+ * pasada y recordando solo el renglon anterior. Revisa el encabezado, que
+ * cada casilla coincida con sus vecinas del norte y del oeste en la pared que
+ * comparten, que el borde este cerrado salvo por exactamente dos puertas (la
+ * entrada y la salida) y que el archivo tenga el numero justo de casillas.
+ * Se detiene en el primer error, y lo reporta con las coordenadas de la
+ * casilla donde se encontro.
+ */
+public class ValidadorLaberinto {
+
+    /* Bytes leidos hasta ahora */
+    private long leidos;
+    /* El ancho y la altura del laberinto */
+    private int ancho, alto;
+    /* Las coordenadas de la casilla que sigue */
+    private int x, y;
+    /* El renglon anterior y el actual */
+    private byte[] anterior, actual;
+    /* Las puertas hacia fuera encontradas */
+    private int puertas;
+    /* El primer error, o null si no hay */
+    private String error;
+    /* Las coordenadas del error, o null si no es de una casilla */
+    private int[] posicion;
+    /* Si ya se termino la validacion */
+    private boolean terminado;
+
+    /**
+     * Valida el siguiente byte del archivo.
+     * @param b el byte, entre 0 y 255.
+     * @return <code>true</code> si hasta ahora no hay errores,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean agrega(int b){
+        if (error != null)
+            return false;
+        if (terminado)
+            return falla("Hay bytes despues de terminar la validacion", null);
+        if (leidos < Cuadricula.ENCABEZADO)
+            return encabezado(b & 0xFF);
+        if (y == alto)
+            return falla("El archivo tiene bytes de mas despues de las " + (ancho * alto) + " casillas", null);
+        casilla(b & 0xFF);
+        leidos++;
+        return error == null;
+    }
+
+    /**
+     * Valida los siguientes bytes del archivo.
+     * @param bytes el arreglo con los bytes.
+     * @param desde donde empiezan los bytes.
+     * @param cuantos cuantos bytes hay.
+     * @return <code>true</code> si hasta ahora no hay errores,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean agrega(byte[] bytes, int desde, int cuantos){
+        for (int i = desde; i < desde + cuantos && error == null; i++)
+            agrega(bytes[i]);
+        return error == null;
+    }
+
+    /**
+     * Termina la validacion: revisa que hayan llegado todas las casillas y
+     * que el borde tenga exactamente dos puertas.
+     * @return <code>true</code> si el archivo es valido, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean termina(){
+        if (error != null || terminado)
+            return error == null;
+        terminado = true;
+        if (leidos < Cuadricula.ENCABEZADO)
+            return falla("El archivo es demasiado corto para tener encabezado", null);
+        if (y < alto)
+            return falla("El archivo termina antes de tiempo: faltan " +
+                         (ancho * alto - (leidos - Cuadricula.ENCABEZADO)) + " casillas", new int[] { x, y });
+        if (puertas < 2)
+            return falla("El laberinto debe tener una entrada y una salida", null);
+        return true;
+    }
+
+    /**
+     * Valida todos los bytes de una entrada.
+     * @param entrada la entrada.
+     * @return <code>true</code> si el archivo es valido, <code>false</code>
+     *         en otro caso.
+     * @throws IOException si ocurre un error al leer.
+     */
+    public boolean valida(InputStream entrada) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        int n;
+        while ((n = entrada.read(buffer)) != -1)
+            if (!agrega(buffer, 0, n))
+                return false;
+        return termina();
+    }
+
+    /**
+     * Nos dice si no se ha encontrado ningun error.
+     * @return <code>true</code> si no hay errores, <code>false</code> en otro
+     *         caso.
+     */
+    public boolean esValido(){
+        return error == null;
+    }
+
+    /**
+     * Regresa la descripcion del primer error.
+     * @return la descripcion del primer error, o <code>null</code> si no hay.
+     */
+    public String getError(){
+        return error;
+    }
+
+    /**
+     * Regresa las coordenadas de la casilla del primer error.
+     * @return un arreglo con la columna y el renglon de la casilla del primer
+     *         error, o <code>null</code> si no hay error o no es de una
+     *         casilla.
+     */
+    public int[] getPosicionError(){
+        return posicion;
+    }
+
+    /**
+     * Regresa el ancho leido del encabezado.
+     * @return el ancho del laberinto.
+     */
+    public int getAncho(){
+        return ancho;
+    }
+
+    /**
+     * Regresa la altura leida del encabezado.
+     * @return la altura del laberinto.
+     */
+    public int getAlto(){
+        return alto;
+    }
+
+    /* Valida un byte del encabezado */
+    private boolean encabezado(int b){
+        int i = (int)leidos++;
+        if (i < 4){
+            if (b != "MAZE".charAt(i))
+                return falla("El archivo no empieza con MAZE", null);
+            return true;
+        }
+        if (b < 2)
+            return falla("El laberinto debe tener al menos 2 " + (i == 4 ? "renglones" : "columnas"), null);
+        if (i == 4){
+            alto = b;
+            return true;
+        }
+        ancho = b;
+        anterior = new byte[ancho];
+        actual = new byte[ancho];
+        return true;
+    }
+
+    /* Valida la casilla que sigue contra sus vecinas ya leidas y el borde */
+    private void casilla(int c){
+        actual[x] = (byte)c;
+        if (x == 0)
+            borde(c, Cuadricula.OESTE);
+        else if (((c & Cuadricula.OESTE) == 0) != ((actual[x-1] & Cuadricula.ESTE) == 0))
+            noCoinciden(x - 1, y);
+        if (error == null){
+            if (y == 0)
+                borde(c, Cuadricula.NORTE);
+            else if (((c & Cuadricula.NORTE) == 0) != ((anterior[x] & Cuadricula.SUR) == 0))
+                noCoinciden(x, y - 1);
+        }
+        if (error == null && x == ancho - 1)
+            borde(c, Cuadricula.ESTE);
+        if (error == null && y == alto - 1)
+            borde(c, Cuadricula.SUR);
+        if (++x == ancho){
+            byte[] t = anterior;
+            anterior = actual;
+            actual = t;
+            x = 0;
+            y++;
+        }
+    }
+
+    /* Cuenta una puerta en el borde si la pared esta abierta */
+    private void borde(int c, int pared){
+        if ((c & pared) != 0)
+            return;
+        if (++puertas > 2)
+            falla("El laberinto tiene mas de una entrada y una salida", new int[] { x, y });
+    }
+
+    /* Reporta que la casilla actual no coincide con una vecina */
+    private void noCoinciden(int vx, int vy){
+        falla(String.format("Las casillas de coordenadas (%d,%d) y (%d,%d) no coinciden en la pared que comparten",
+                            x, y, vx, vy), new int[] { x, y });
+    }
+
+    /* Anota el primer error y regresa false */
+    private boolean falla(String error, int[] posicion){
+        if (this.error == null){
+            this.error = error;
+            this.posicion = posicion;
+        }
+        return false;
+    }
+}